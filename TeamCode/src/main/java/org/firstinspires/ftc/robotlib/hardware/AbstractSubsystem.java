@@ -1,5 +1,10 @@
 package org.firstinspires.ftc.robotlib.hardware;
 
+import com.acmerobotics.dashboard.canvas.Canvas;
+
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
+import org.firstinspires.ftc.robotlib.util.LogLevel;
 import org.firstinspires.ftc.robotlib.util.TelemetryData;
 
 import java.util.Map;
@@ -8,12 +13,17 @@ import java.util.Map;
 public abstract class AbstractSubsystem implements Subsystem {
     private String name;
     protected TelemetryData telemetry;
+    private LogConfig logConfig = null; // LogConfig.DEFAULT unless set
 
     public AbstractSubsystem(String name) {
         this.name = name;
         telemetry = new TelemetryData(name);
     }
 
+    public String getName() {
+        return name;
+    }
+
     public void init() {
 
     }
@@ -46,7 +56,41 @@ public abstract class AbstractSubsystem implements Subsystem {
         return telemetry.getData();
     }
 
+    public void updateFieldOverlay(Canvas fieldOverlay) {
+
+    }
+
+    /**
+     * Declare the channels this subsystem writes in updateLogging()
+     */
+    public void registerChannels(DataRecorder recorder) {
+
+    }
+
     public void updateLogging() {
 
     }
+
+    public LogLevel getLogLevel() {
+        return getLogConfig().level;
+    }
+
+    /**
+     * Loops between calls to updateLogging() when the log level is SAMPLED
+     */
+    public int getLogSamplePeriod() {
+        return getLogConfig().samplePeriod;
+    }
+
+    public LogConfig getLogConfig() {
+        return logConfig != null ? logConfig : LogConfig.DEFAULT;
+    }
+
+    /**
+     * Give this subsystem a level of its own, usually a public static LogConfig in a @Config class.
+     * The config is read every loop, so changing its fields takes effect straight away.
+     */
+    public void setLogConfig(LogConfig logConfig) {
+        this.logConfig = logConfig;
+    }
 }
@@ -1,8 +1,15 @@
 package org.firstinspires.ftc.robotlib.hardware;
 
+import com.acmerobotics.dashboard.canvas.Canvas;
+
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogLevel;
+
 import java.util.Map;
 
 public interface Subsystem {
+    String getName();
+
     void init();
 
     void initUpdate();
@@ -21,5 +28,13 @@ public interface Subsystem {
 
     Map<String, Object> getTelemetryData();
 
+    void updateFieldOverlay(Canvas fieldOverlay);
+
+    void registerChannels(DataRecorder recorder);
+
     void updateLogging();
+
+    LogLevel getLogLevel();
+
+    int getLogSamplePeriod();
 }
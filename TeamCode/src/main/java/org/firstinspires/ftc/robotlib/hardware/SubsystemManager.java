@@ -1,17 +1,66 @@
 package org.firstinspires.ftc.robotlib.hardware;
 
+import android.util.Log;
+
 import com.acmerobotics.dashboard.FtcDashboard;
-import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.hardware.lynx.LynxModule;
+
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LoggingUtil;
+import org.firstinspires.ftc.robotlib.util.LoopTimer;
+import org.firstinspires.ftc.robotlib.util.LoopTimer.Phase;
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
+import org.firstinspires.ftc.robotlib.util.TelemetryPublisher;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
+@Config
 public class SubsystemManager {
+    // Write every subsystem's loop timing to a CSV in the log folder when the OpMode stops. Off for
+    // matches, turn it on from the dashboard while looking into loop times.
+    public static boolean TIMING_CSV_ON_STOP = false;
+
     private FtcDashboard dashboard = FtcDashboard.getInstance();
+    private TelemetryPublisher telemetryPublisher = new TelemetryPublisher(dashboard);
     private ArrayList<Subsystem> subsystems = new ArrayList<>();
 
     private RobotBase robot;
 
+    /*
+     * INTERLEAVED: read, update and write each subsystem before moving onto the next
+     * PHASED: read every subsystem, then update every subsystem, then write every subsystem
+     */
+    public enum ExecutionMode {
+        INTERLEAVED,
+        PHASED
+    }
+
+    private ExecutionMode executionMode = ExecutionMode.INTERLEAVED;
+    private List<LynxModule> lynxModules = new ArrayList<>();
+    private boolean bulkCacheCleared = false;
+
+    private SubsystemScheduler scheduler = new SubsystemScheduler();
+
+    private DataRecorder recorder = new DataRecorder();
+    private File recordingFile;
+    private int[] logCounters = new int[0]; // loops since each subsystem last logged
+    private int[] logGroups = new int[0]; // each subsystem's recorder group
+    private boolean loggedThisLoop = false;
+
+    // Loop timing //
+    private ArrayList<LoopTimer> timers = new ArrayList<>();
+    private LoopTimer loopTimer = new LoopTimer("Loop");
+    private TelemetryData telemetryData = new TelemetryData("Subsystem Manager");
+    private static final int STATS_INTERVAL = 50; // loops between stat refreshes, sorting for p99 isn't free
+    private int loopsSinceStats = STATS_INTERVAL;
+
     public SubsystemManager(RobotBase robot) {
         this.robot = robot;
     }
@@ -19,82 +68,214 @@ public class SubsystemManager {
         this(null);
     }
 
-    public void add(Subsystem subsystem) {
+    /**
+     * Add a subsystem whose telemetry and logging only run once every divisor loops. Reading sensors,
+     * update() and writing to motors and servos still run every loop so control never slows down.
+     * Low rate subsystems are staggered so they don't all report on the same loop.
+     */
+    public void add(Subsystem subsystem, int divisor) {
         subsystems.add(subsystem);
+        timers.add(new LoopTimer(subsystem.getName()));
+        scheduler.add(divisor);
+        logGroups = Arrays.copyOf(logGroups, subsystems.size());
+        logGroups[subsystems.size() - 1] = recorder.beginGroup(subsystem.getName());
+        subsystem.registerChannels(recorder);
+        recorder.endGroup();
+        logCounters = Arrays.copyOf(logCounters, subsystems.size());
+    }
+    public void add(Subsystem subsystem) {
+        add(subsystem, 1);
     }
     public void add(Subsystem... subsystems) {
-        this.subsystems.addAll(Arrays.asList(subsystems));
+        for (Subsystem subsystem : subsystems) {
+            add(subsystem);
+        }
     }
 
     public void init() {
         dashboard.setTelemetryTransmissionInterval(25);
+        recordingFile = LoggingUtil.getLogFile("Recording_" + System.currentTimeMillis() + ".bin");
+        recorder.start(recordingFile);
 
-        for (Subsystem subsystem : subsystems) {
+        clearBulkCache();
+        for (int i = 0; i < subsystems.size(); i++) {
+            Subsystem subsystem = subsystems.get(i);
             subsystem.readSensorValues();
             subsystem.init();
             subsystem.updateMotorAndServoValues();
             subsystem.updateTelemetry();
-            subsystem.updateLogging();
+            if (shouldLog(i)) log(i);
         }
+        endRow();
+        bulkCacheCleared = false;
         updateRobotLoggingAndTelemetry();
         pushTelemetry();
     }
 
     public void initUpdate() {
-        for (Subsystem subsystem : subsystems) {
+        clearBulkCache();
+        for (int i = 0; i < subsystems.size(); i++) {
+            Subsystem subsystem = subsystems.get(i);
             subsystem.readSensorValues();
             subsystem.initUpdate();
             subsystem.updateMotorAndServoValues();
             subsystem.updateTelemetry();
-            subsystem.updateLogging();
+            if (shouldLog(i)) log(i);
         }
+        endRow();
+        bulkCacheCleared = false;
         updateRobotLoggingAndTelemetry();
         pushTelemetry();
     }
 
     public void start() {
-        for (Subsystem subsystem : subsystems) {
+        clearBulkCache();
+        for (int i = 0; i < subsystems.size(); i++) {
+            Subsystem subsystem = subsystems.get(i);
             subsystem.readSensorValues();
             subsystem.start();
             subsystem.updateMotorAndServoValues();
             subsystem.updateTelemetry();
-            subsystem.updateLogging();
+            if (shouldLog(i)) log(i);
         }
+        endRow();
+        bulkCacheCleared = false;
         updateRobotLoggingAndTelemetry();
         pushTelemetry();
     }
 
     public void update() {
-        for (Subsystem subsystem : subsystems) {
-            subsystem.readSensorValues();
-            subsystem.update();
-            subsystem.updateMotorAndServoValues();
-            subsystem.updateTelemetry();
-            subsystem.updateLogging();
+        long loopStart = System.nanoTime();
+        switch (executionMode) {
+            case INTERLEAVED:
+                for (int i = 0; i < subsystems.size(); i++) {
+                    runPhase(i, Phase.READ);
+                    runPhase(i, Phase.UPDATE);
+                    runPhase(i, Phase.WRITE);
+                    runPhase(i, Phase.TELEMETRY);
+                    runPhase(i, Phase.LOGGING);
+                }
+                break;
+            case PHASED:
+                clearBulkCache();
+                for (Phase phase : Phase.values()) {
+                    for (int i = 0; i < subsystems.size(); i++) {
+                        runPhase(i, phase);
+                    }
+                }
+                break;
         }
+        bulkCacheCleared = false;
+        endRow();
+        for (LoopTimer timer : timers) {
+            timer.endLoop();
+        }
+        scheduler.tick();
         updateRobotLoggingAndTelemetry();
         pushTelemetry();
+        loopTimer.record(Phase.UPDATE, System.nanoTime() - loopStart);
+        loopTimer.endLoop();
     }
 
     public void stop() {
-        for (Subsystem subsystem : subsystems) {
+        clearBulkCache();
+        for (int i = 0; i < subsystems.size(); i++) {
+            Subsystem subsystem = subsystems.get(i);
             subsystem.readSensorValues();
             subsystem.stop();
             subsystem.updateMotorAndServoValues();
             subsystem.updateTelemetry();
-            subsystem.updateLogging();
+            if (shouldLog(i)) log(i);
         }
+        endRow();
         updateRobotLoggingAndTelemetry();
         pushTelemetry();
+        telemetryPublisher.stop();
+        recorder.stop();
+        if (recordingFile != null) LoggingUtil.closeLogFile(recordingFile);
+
+        if (TIMING_CSV_ON_STOP) writeTimingCsv();
+    }
+
+    private void runPhase(int i, Phase phase) {
+        if (isRateDivided(phase) && !scheduler.shouldRun(i)) {
+            timers.get(i).record(phase, 0);
+            return;
+        }
+
+        Subsystem subsystem = subsystems.get(i);
+        long start = System.nanoTime();
+        switch (phase) {
+            case READ:
+                subsystem.readSensorValues();
+                break;
+            case UPDATE:
+                subsystem.update();
+                break;
+            case WRITE:
+                subsystem.updateMotorAndServoValues();
+                break;
+            case TELEMETRY:
+                subsystem.updateTelemetry();
+                break;
+            case LOGGING:
+                if (shouldLog(i)) log(i);
+                break;
+        }
+        timers.get(i).record(phase, System.nanoTime() - start);
+    }
+
+    /*
+     * Only reporting is slowed down by a subsystem's divisor, never control
+     */
+    private static boolean isRateDivided(Phase phase) {
+        return phase == Phase.TELEMETRY || phase == Phase.LOGGING;
+    }
+
+    /**
+     * Gate logging before calling updateLogging() so a disabled subsystem doesn't evaluate any of
+     * its log arguments
+     */
+    private boolean shouldLog(int i) {
+        Subsystem subsystem = subsystems.get(i);
+        switch (subsystem.getLogLevel()) {
+            case ALL:
+                return true;
+            case SAMPLED:
+                if (logCounters[i] > 0) {
+                    logCounters[i]--;
+                    return false;
+                }
+                logCounters[i] = Math.max(subsystem.getLogSamplePeriod(), 1) - 1;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void log(int i) {
+        subsystems.get(i).updateLogging();
+        recorder.markGroup(logGroups[i]);
+        loggedThisLoop = true;
+    }
+
+    /*
+     * Rows mark which subsystems logged, there's no row if none did
+     */
+    private void endRow() {
+        if (loggedThisLoop) recorder.endRow();
+        loggedThisLoop = false;
     }
 
     private void pushTelemetry() {
-        TelemetryPacket packet = new TelemetryPacket();
         for (Subsystem subsystem : subsystems) {
-            packet.putAll(subsystem.getTelemetryData());
+            telemetryPublisher.putAll(subsystem.getTelemetryData());
+            subsystem.updateFieldOverlay(telemetryPublisher.getFieldOverlay());
         }
-        if (robot != null) packet.putAll(robot.getTelemetry());
-        dashboard.sendTelemetryPacket(packet);
+        if (robot != null) telemetryPublisher.putAll(robot.getTelemetry());
+        telemetryPublisher.putAll(getTelemetryData());
+        telemetryPublisher.start(); // no-op once running, some OpModes never call init()
+        telemetryPublisher.publish();
     }
 
     private void updateRobotLoggingAndTelemetry() {
@@ -103,4 +284,70 @@ public class SubsystemManager {
             robot.updateLogging();
         }
     }
+
+    /**
+     * Loop time stats (min/mean/p99) for every subsystem and phase
+     */
+    public Map<String, Object> getTelemetryData() {
+        if (loopsSinceStats++ < STATS_INTERVAL) return telemetryData.getData();
+        loopsSinceStats = 0;
+
+        telemetryData.put("Loop min (ms)", loopTimer.getMin(Phase.UPDATE) / 1e6);
+        telemetryData.put("Loop mean (ms)", loopTimer.getMean(Phase.UPDATE) / 1e6);
+        telemetryData.put("Loop p99 (ms)", loopTimer.getPercentile(Phase.UPDATE, .99) / 1e6);
+        for (LoopTimer timer : timers) {
+            timer.putStats(telemetryData);
+        }
+        telemetryData.put("Dropped telemetry frames", telemetryPublisher.getDroppedFrames());
+        telemetryData.put("Dropped recorder rows", recorder.getDroppedRows());
+
+        return telemetryData.getData();
+    }
+
+    public void writeTimingCsv() {
+        File file = LoggingUtil.getLogFile("LoopTiming_" + System.currentTimeMillis() + ".csv");
+        try (PrintWriter writer = new PrintWriter(file)) {
+            LoopTimer.writeCsvHeader(writer);
+            for (LoopTimer timer : timers) {
+                timer.writeCsv(writer);
+            }
+        } catch (FileNotFoundException e) {
+            Log.e("SubsystemManager", "Could not write loop timing", e);
+        }
+        LoggingUtil.closeLogFile(file);
+    }
+
+    /**
+     * Clears the bulk cache of every hub if it hasn't been cleared yet this loop. Call this before
+     * reading hardware outside of the manager (e.g. updating the localizer ahead of update()).
+     */
+    public void clearBulkCache() {
+        if (executionMode != ExecutionMode.PHASED || bulkCacheCleared) return;
+        for (LynxModule module : lynxModules) {
+            module.clearBulkCache();
+        }
+        bulkCacheCleared = true;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * PHASED mode switches the hubs to MANUAL bulk caching so every subsystem reads from the same
+     * snapshot, and clears the cache exactly once per loop
+     */
+    public void setExecutionMode(ExecutionMode executionMode, List<LynxModule> lynxModules) {
+        this.executionMode = executionMode;
+        this.lynxModules = lynxModules;
+        LynxModule.BulkCachingMode cachingMode = executionMode == ExecutionMode.PHASED ?
+                LynxModule.BulkCachingMode.MANUAL : LynxModule.BulkCachingMode.AUTO;
+        for (LynxModule module : lynxModules) {
+            module.setBulkCachingMode(cachingMode);
+        }
+    }
+
+    public LoopTimer getTimer(Subsystem subsystem) {
+        return timers.get(subsystems.indexOf(subsystem));
+    }
 }
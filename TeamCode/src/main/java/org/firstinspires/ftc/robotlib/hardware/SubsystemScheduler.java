@@ -0,0 +1,81 @@
+package org.firstinspires.ftc.robotlib.hardware;
+
+import java.util.ArrayList;
+
+/**
+ * Decides which subsystems run on a given tick. A subsystem with a divisor of n runs once every n
+ * ticks, and its offset is picked so low-rate subsystems are staggered across ticks instead of all
+ * landing on the same one.
+ */
+public class SubsystemScheduler {
+    // Divisible by 1 through 6, 8, 10, 12... so every common divisor tiles it evenly
+    public static final int HORIZON = 120;
+
+    private final ArrayList<Integer> divisors = new ArrayList<>();
+    private final ArrayList<Integer> offsets = new ArrayList<>();
+    private final int[] slotLoad = new int[HORIZON];
+
+    private long tick = 0;
+
+    /**
+     * Register a subsystem that runs every divisor ticks
+     * @return index used to query {@link #shouldRun(int)}
+     */
+    public int add(int divisor) {
+        if (divisor < 1) {
+            throw new IllegalArgumentException("Divisor must be at least 1, was " + divisor);
+        }
+
+        // Pick the offset whose busiest tick is the least busy
+        int bestOffset = 0;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int offset = 0; offset < divisor; offset++) {
+            int load = 0;
+            for (int t = offset; t < HORIZON; t += divisor) {
+                load = Math.max(load, slotLoad[t]);
+            }
+            if (load < bestLoad) {
+                bestLoad = load;
+                bestOffset = offset;
+            }
+        }
+        for (int t = bestOffset; t < HORIZON; t += divisor) {
+            slotLoad[t]++;
+        }
+
+        divisors.add(divisor);
+        offsets.add(bestOffset);
+        return divisors.size() - 1;
+    }
+
+    public boolean shouldRun(int index) {
+        return tick % divisors.get(index) == offsets.get(index);
+    }
+
+    public void tick() {
+        tick++;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getDivisor(int index) {
+        return divisors.get(index);
+    }
+
+    public int getOffset(int index) {
+        return offsets.get(index);
+    }
+
+    /**
+     * Most subsystems scheduled on any single tick
+     */
+    public int getMaxLoad() {
+        int max = 0;
+        for (int load : slotLoad) {
+            max = Math.max(max, load);
+        }
+        return max;
+    }
+}
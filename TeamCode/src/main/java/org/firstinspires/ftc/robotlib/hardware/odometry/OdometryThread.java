@@ -0,0 +1,115 @@
+package org.firstinspires.ftc.robotlib.hardware.odometry;
+
+import android.util.Log;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Samples odometry at a fixed rate on its own high priority thread, independent of the OpMode loop.
+ * The odometry thread is the only writer; any number of threads can read the latest
+ * {@link PoseSnapshot} without locking.
+ */
+public class OdometryThread {
+    /**
+     * Odometry that can be stepped by the thread. Only ever called from the odometry thread while
+     * it is running.
+     */
+    public interface Odometry {
+        void updateOdometry();
+
+        Pose2d getOdometryPose();
+
+        Pose2d getOdometryVelocity();
+
+        void setOdometryPose(Pose2d pose);
+    }
+
+    private final Odometry odometry;
+    private final Runnable beforeSample;
+
+    private final AtomicReference<PoseSnapshot> latest;
+    private final AtomicReference<Pose2d> pendingPose = new AtomicReference<>();
+
+    private ScheduledExecutorService executor;
+    private long sequence = 0;
+
+    /**
+     * @param beforeSample run on the odometry thread before each sample, e.g. to clear the bulk cache
+     *                     of the hub the encoders are plugged into. May be null.
+     */
+    public OdometryThread(Odometry odometry, Runnable beforeSample) {
+        this.odometry = odometry;
+        this.beforeSample = beforeSample;
+        latest = new AtomicReference<>(snapshot());
+    }
+
+    public OdometryThread(Odometry odometry) {
+        this(odometry, null);
+    }
+
+    public synchronized void start(long periodMicros) {
+        if (isRunning()) return;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Odometry");
+            thread.setPriority(Thread.MAX_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::sample, 0, periodMicros, TimeUnit.MICROSECONDS);
+    }
+
+    public synchronized void stop() {
+        if (!isRunning()) return;
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(100, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    private void sample() {
+        try {
+            Pose2d pose = pendingPose.getAndSet(null);
+            if (pose != null) odometry.setOdometryPose(pose);
+
+            if (beforeSample != null) beforeSample.run();
+            odometry.updateOdometry();
+            latest.set(snapshot());
+        } catch (RuntimeException e) {
+            // An exception would silently cancel every future sample
+            Log.e("OdometryThread", "Odometry sample failed", e);
+        }
+    }
+
+    private PoseSnapshot snapshot() {
+        return new PoseSnapshot(odometry.getOdometryPose(), odometry.getOdometryVelocity(),
+                System.nanoTime(), sequence++);
+    }
+
+    public PoseSnapshot getLatest() {
+        return latest.get();
+    }
+
+    /**
+     * Reset the pose. Applied by the odometry thread before its next sample so it never races an
+     * update in progress.
+     */
+    public void setPose(Pose2d pose) {
+        pendingPose.set(pose);
+        if (!isRunning()) {
+            odometry.setOdometryPose(pendingPose.getAndSet(null));
+            latest.set(snapshot());
+        }
+    }
+}
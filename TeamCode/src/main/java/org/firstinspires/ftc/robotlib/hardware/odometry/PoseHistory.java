@@ -0,0 +1,102 @@
+package org.firstinspires.ftc.robotlib.hardware.odometry;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.util.Angle;
+
+/**
+ * Time indexed history of odometry poses, so something measured in the past (e.g. a camera frame)
+ * can be combined with where the robot was at that moment rather than where it is now.
+ *
+ * Samples are kept in a fixed size ring buffer of primitives and looked up with a binary search.
+ * Poses between two samples are linearly interpolated, taking the short way around for heading.
+ */
+public class PoseHistory {
+    public static final int DEFAULT_CAPACITY = 256; // ~1.3 s at a 5 ms odometry period
+
+    private final int capacity;
+    private final long[] timestamps; // System.nanoTime()
+    private final double[] xs, ys, headings;
+    private int start = 0, size = 0;
+
+    public PoseHistory(int capacity) {
+        this.capacity = capacity;
+        timestamps = new long[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        headings = new double[capacity];
+    }
+
+    public PoseHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Samples must be added in time order, older or repeated timestamps are ignored
+     */
+    public synchronized void add(long timestamp, Pose2d pose) {
+        if (size > 0 && timestamp <= timestamps[index(size - 1)]) return;
+
+        int i;
+        if (size < capacity) {
+            i = index(size);
+            size++;
+        } else {
+            // Overwrite the oldest sample
+            i = start;
+            start = (start + 1) % capacity;
+        }
+        timestamps[i] = timestamp;
+        xs[i] = pose.getX();
+        ys[i] = pose.getY();
+        headings[i] = pose.getHeading();
+    }
+
+    /**
+     * Forget every sample, e.g. after the pose is reset and old samples are in a different frame
+     */
+    public synchronized void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    /**
+     * Pose at the given time, clamped to the oldest and newest samples. Null if there are none.
+     */
+    public synchronized Pose2d getPose(long timestamp) {
+        if (size == 0) return null;
+        int oldest = index(0), newest = index(size - 1);
+        if (timestamp <= timestamps[oldest]) return pose(oldest);
+        if (timestamp >= timestamps[newest]) return pose(newest);
+
+        // Find the samples either side of timestamp
+        int low = 0, high = size - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[index(mid)] <= timestamp) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        int a = index(low), b = index(high);
+
+        double t = (double) (timestamp - timestamps[a]) / (timestamps[b] - timestamps[a]);
+        return new Pose2d(
+                xs[a] + t * (xs[b] - xs[a]),
+                ys[a] + t * (ys[b] - ys[a]),
+                Angle.norm(headings[a] + t * Angle.normDelta(headings[b] - headings[a]))
+        );
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int index(int i) {
+        return (start + i) % capacity;
+    }
+
+    private Pose2d pose(int i) {
+        return new Pose2d(xs[i], ys[i], headings[i]);
+    }
+}
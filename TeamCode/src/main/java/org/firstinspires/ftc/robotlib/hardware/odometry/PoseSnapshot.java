@@ -0,0 +1,36 @@
+package org.firstinspires.ftc.robotlib.hardware.odometry;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+
+/**
+ * Immutable pose estimate published by the odometry thread
+ */
+public final class PoseSnapshot {
+    private final Pose2d pose;
+    private final Pose2d velocity;
+    private final long timestamp; // System.nanoTime() when the encoders were sampled
+    private final long sequence;
+
+    public PoseSnapshot(Pose2d pose, Pose2d velocity, long timestamp, long sequence) {
+        this.pose = pose;
+        this.velocity = velocity;
+        this.timestamp = timestamp;
+        this.sequence = sequence;
+    }
+
+    public Pose2d getPose() {
+        return pose;
+    }
+
+    public Pose2d getVelocity() {
+        return velocity;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+}
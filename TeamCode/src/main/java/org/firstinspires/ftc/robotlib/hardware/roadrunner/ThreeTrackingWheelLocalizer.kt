@@ -8,25 +8,44 @@ import org.apache.commons.math3.linear.DecompositionSolver
 import org.apache.commons.math3.linear.LUDecomposition
 import org.apache.commons.math3.linear.MatrixUtils
 import org.firstinspires.ftc.robotlib.hardware.AbstractSubsystem
+import org.firstinspires.ftc.robotlib.hardware.odometry.OdometryThread
+import org.firstinspires.ftc.robotlib.hardware.odometry.PoseHistory
+import org.firstinspires.ftc.robotlib.hardware.odometry.PoseSnapshot
 
 /**
  * Localizer based on three unpowered tracking omni wheels.
  *
+ * By default the wheels are sampled whenever [update] is called. After [startOdometryThread] they are
+ * sampled on a dedicated thread instead, and [poseEstimate] returns the latest published snapshot.
+ *
  * @param wheelPoses wheel poses relative to the center of the robot (positive X points forward on the robot)
  */
 abstract class ThreeTrackingWheelLocalizer(
         name: String, wheelPoses: List<Pose2d>
-) : AbstractSubsystem(name), Localizer {
+) : AbstractSubsystem(name), Localizer, OdometryThread.Odometry {
     private var _poseEstimate = Pose2d()
     override var poseEstimate: Pose2d
-        get() = _poseEstimate
+        get() = odometryThread?.latest?.pose ?: _poseEstimate
+        set(value) {
+            val thread = odometryThread
+            if (thread != null) {
+                thread.setPose(value)
+            } else {
+                setOdometryPose(value)
+            }
+        }
+    private var _poseVelocity: Pose2d? = null
+    override var poseVelocity: Pose2d?
+        get() = odometryThread?.latest?.velocity ?: _poseVelocity
         set(value) {
-            lastWheelPositions = emptyList()
-            _poseEstimate = value
+            _poseVelocity = value
         }
-    override var poseVelocity: Pose2d? = null
     private var lastWheelPositions = emptyList<Double>()
 
+    private var odometryThread: OdometryThread? = null
+
+    private val poseHistory = PoseHistory()
+
     private val forwardSolver: DecompositionSolver
 
     init {
@@ -64,7 +83,12 @@ abstract class ThreeTrackingWheelLocalizer(
     }
 
     override fun update() {
+        if (odometryThread == null) updateOdometry()
+    }
+
+    override fun updateOdometry() {
         val wheelPositions = getWheelPositions()
+        val timestamp = System.nanoTime()
         if (lastWheelPositions.isNotEmpty()) {
             val wheelDeltas = wheelPositions
                     .zip(lastWheelPositions)
@@ -72,15 +96,55 @@ abstract class ThreeTrackingWheelLocalizer(
             val robotPoseDelta = calculatePoseDelta(wheelDeltas)
             _poseEstimate = Kinematics.relativeOdometryUpdate(_poseEstimate, robotPoseDelta)
         }
+        poseHistory.add(timestamp, _poseEstimate)
 
         val wheelVelocities = getWheelVelocities()
         if (wheelVelocities != null) {
-            poseVelocity = calculatePoseDelta(wheelVelocities)
+            _poseVelocity = calculatePoseDelta(wheelVelocities)
         }
 
         lastWheelPositions = wheelPositions
     }
 
+    override fun getOdometryPose(): Pose2d = _poseEstimate
+
+    override fun getOdometryVelocity(): Pose2d? = _poseVelocity
+
+    override fun setOdometryPose(pose: Pose2d) {
+        lastWheelPositions = emptyList()
+        _poseEstimate = pose
+        poseHistory.clear()
+    }
+
+    /**
+     * Sample the tracking wheels on a dedicated thread every [periodMicros] instead of in [update].
+     *
+     * @param beforeSample run on the odometry thread before each sample (e.g. clearing a bulk cache)
+     */
+    @JvmOverloads
+    fun startOdometryThread(periodMicros: Long, beforeSample: Runnable? = null) {
+        if (odometryThread != null) return
+        val thread = OdometryThread(this, beforeSample)
+        thread.start(periodMicros)
+        odometryThread = thread
+    }
+
+    fun stopOdometryThread() {
+        val thread = odometryThread ?: return
+        thread.stop()
+        odometryThread = null
+        _poseEstimate = thread.latest.pose
+        _poseVelocity = thread.latest.velocity
+    }
+
+    fun getPoseSnapshot(): PoseSnapshot? = odometryThread?.latest
+
+    /**
+     * Pose at [timestamp] (System.nanoTime()), interpolated from recent odometry samples. Falls back
+     * to the current estimate if there is no history yet.
+     */
+    fun getPoseAt(timestamp: Long): Pose2d = poseHistory.getPose(timestamp) ?: poseEstimate
+
     /**
      * Returns the positions of the tracking wheels in the desired distance units (not encoder counts!)
      */
@@ -0,0 +1,299 @@
+package org.firstinspires.ftc.robotlib.util;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records typed channels to a compact binary log, one fixed size row per loop.
+ *
+ * Channels are declared once before {@link #start(File)}. Each loop the owner sets the channel
+ * values and calls {@link #endRow()}, which copies the row into a preallocated ring buffer. A
+ * background thread drains the ring to disk through a FileChannel, so the loop never touches the
+ * file. If the writer falls behind, rows are dropped and counted rather than blocking the loop.
+ *
+ * Channels can be grouped (e.g. one group per subsystem) when not every group is written every
+ * row. Each row carries a bitmask of the groups marked with {@link #markGroup(int)} since the last
+ * row, so values a group didn't write this row aren't mistaken for fresh samples. Channels outside
+ * any group are taken to be written every row.
+ *
+ * File layout (big endian):
+ * <pre>
+ * int magic, int version, int group count,
+ * per group: short name length, UTF-8 name
+ * int channel count,
+ * per channel: byte type, byte group (-1 for none), short name length, UTF-8 name
+ * rows: long timestamp (System.nanoTime()), long bitmask of groups written, then every channel in
+ * declaration order
+ * </pre>
+ * Use {@link DataRecorderReader} to convert a log to CSV.
+ */
+public class DataRecorder {
+    public static final int MAGIC = 0x52524543; // "RREC"
+    public static final int VERSION = 2;
+    public static final int MAX_GROUPS = 64; // bits in a row's group mask
+
+    public static final byte TYPE_DOUBLE = 0;
+    public static final byte TYPE_INT = 1;
+    public static final byte TYPE_BOOLEAN = 2;
+
+    public static final int DEFAULT_RING_SIZE = 1 << 20; // bytes
+    public static final long FLUSH_INTERVAL_MS = 100;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Channels //
+    public abstract class Channel {
+        private final String name;
+        private final byte type;
+        private final int group;
+        final int offset;
+
+        private Channel(String name, byte type, int size) {
+            if (started) throw new IllegalStateException("Channels must be added before the recorder starts");
+            this.name = name;
+            this.type = type;
+            this.group = currentGroup;
+            this.offset = rowSize;
+            rowSize += size;
+            row = ByteBuffer.allocate(rowSize);
+            channels.add(this);
+        }
+    }
+
+    public class DoubleChannel extends Channel {
+        private DoubleChannel(String name) {
+            super(name, TYPE_DOUBLE, 8);
+        }
+        public void set(double value) {
+            row.putDouble(offset, value);
+        }
+    }
+
+    public class IntChannel extends Channel {
+        private IntChannel(String name) {
+            super(name, TYPE_INT, 4);
+        }
+        public void set(int value) {
+            row.putInt(offset, value);
+        }
+    }
+
+    public class BooleanChannel extends Channel {
+        private BooleanChannel(String name) {
+            super(name, TYPE_BOOLEAN, 1);
+        }
+        public void set(boolean value) {
+            row.put(offset, (byte) (value ? 1 : 0));
+        }
+    }
+
+    private final List<Channel> channels = new ArrayList<>();
+    private final List<String> groups = new ArrayList<>();
+    private int currentGroup = -1;
+    private int rowSize = 16; // timestamp and group mask
+    private ByteBuffer row = ByteBuffer.allocate(rowSize);
+    private long groupMask = 0; // groups written since the last row
+
+    // Ring buffer, single producer (loop) and single consumer (writer) //
+    private final int ringSize;
+    private ByteBuffer ring;
+    private volatile long writePosition = 0; // total bytes produced
+    private volatile long readPosition = 0;  // total bytes consumed
+    private volatile int droppedRows = 0;
+
+    private volatile boolean started = false;
+    private FileChannel fileChannel;
+    private ScheduledExecutorService executor;
+
+    public DataRecorder(int ringSize) {
+        this.ringSize = ringSize;
+    }
+
+    public DataRecorder() {
+        this(DEFAULT_RING_SIZE);
+    }
+
+    public DoubleChannel addDouble(String name) {
+        return new DoubleChannel(name);
+    }
+    public IntChannel addInt(String name) {
+        return new IntChannel(name);
+    }
+    public BooleanChannel addBoolean(String name) {
+        return new BooleanChannel(name);
+    }
+
+    /**
+     * Channels added until {@link #endGroup()} belong to a new group
+     *
+     * @return the group's index, for {@link #markGroup(int)}
+     */
+    public int beginGroup(String name) {
+        if (started) throw new IllegalStateException("Groups must be added before the recorder starts");
+        if (groups.size() == MAX_GROUPS) throw new IllegalStateException("At most " + MAX_GROUPS + " groups");
+        groups.add(name);
+        currentGroup = groups.size() - 1;
+        return currentGroup;
+    }
+
+    public void endGroup() {
+        currentGroup = -1;
+    }
+
+    /**
+     * Mark a group's channels as written for the current row
+     */
+    public void markGroup(int group) {
+        groupMask |= 1L << group;
+    }
+
+    public synchronized void start(File file) {
+        if (started) return;
+        // Whole rows only, so a row never wraps around the end of the ring
+        ring = ByteBuffer.allocateDirect(ringSize - ringSize % rowSize);
+
+        try {
+            fileChannel = new FileOutputStream(file).getChannel();
+            writeHeader();
+        } catch (IOException e) {
+            Log.e("DataRecorder", "Could not open " + file, e);
+            return;
+        }
+
+        started = true;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Data Recorder");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes every row that's left and closes the file. Closing it with LoggingUtil is up to
+     * whoever opened it.
+     */
+    public synchronized void stop() {
+        if (!started) return;
+        started = false;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(FLUSH_INTERVAL_MS * 5, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            Log.e("DataRecorder", "Could not close log", e);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        int size = 16;
+        List<byte[]> groupNames = new ArrayList<>();
+        for (String group : groups) {
+            byte[] name = group.getBytes(UTF_8);
+            groupNames.add(name);
+            size += 2 + name.length;
+        }
+        List<byte[]> names = new ArrayList<>();
+        for (Channel channel : channels) {
+            byte[] name = channel.name.getBytes(UTF_8);
+            names.add(name);
+            size += 4 + name.length;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(size);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(groups.size());
+        for (byte[] name : groupNames) {
+            header.putShort((short) name.length);
+            header.put(name);
+        }
+        header.putInt(channels.size());
+        for (int i = 0; i < channels.size(); i++) {
+            header.put(channels.get(i).type);
+            header.put((byte) channels.get(i).group);
+            header.putShort((short) names.get(i).length);
+            header.put(names.get(i));
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            fileChannel.write(header);
+        }
+    }
+
+    /**
+     * Timestamp the current row and hand it to the writer. Doesn't allocate.
+     */
+    public void endRow() {
+        long mask = groupMask;
+        groupMask = 0;
+        if (!started) return;
+        row.putLong(0, System.nanoTime());
+        row.putLong(8, mask);
+
+        long write = writePosition;
+        if (write - readPosition + rowSize > ring.capacity()) {
+            droppedRows++;
+            return;
+        }
+        int index = (int) (write % ring.capacity());
+        for (int i = 0; i < rowSize; i++) {
+            ring.put(index + i, row.get(i));
+        }
+        writePosition = write + rowSize;
+    }
+
+    // Writer thread //
+    private void flush() {
+        long read = readPosition;
+        long write = writePosition;
+        if (write == read) return;
+
+        try {
+            // Drain in at most two chunks: up to the end of the ring, then from the start
+            ByteBuffer chunk = ring.duplicate();
+            while (read < write) {
+                int start = (int) (read % ring.capacity());
+                int length = (int) Math.min(write - read, ring.capacity() - start);
+                chunk.limit(start + length);
+                chunk.position(start);
+                while (chunk.hasRemaining()) {
+                    fileChannel.write(chunk);
+                }
+                read += length;
+                readPosition = read;
+            }
+        } catch (IOException e) {
+            Log.e("DataRecorder", "Could not write log", e);
+        }
+    }
+
+    public int getDroppedRows() {
+        return droppedRows;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public int getRowSize() {
+        return rowSize;
+    }
+}
@@ -0,0 +1,136 @@
+package org.firstinspires.ftc.robotlib.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Converts a {@link DataRecorder} log into CSV. Only uses plain Java so it can be run on a laptop
+ * after pulling the log off the phone:
+ * <pre>
+ * java DataRecorderReader Recording_123.bin Recording_123.csv
+ * java DataRecorderReader Recording_123.bin.gz
+ * </pre>
+ */
+public class DataRecorderReader {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Channels of a group that wasn't written in a row are left blank. A partial last row, from an
+     * OpMode that was killed before the writer caught up, is dropped.
+     */
+    public static void convert(File input, PrintWriter output) throws IOException {
+        InputStream stream = new FileInputStream(input);
+        if (input.getName().endsWith(".gz")) stream = new GZIPInputStream(stream);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != DataRecorder.MAGIC) {
+                throw new IOException(input + " is not a recorder log");
+            }
+            int version = in.readInt();
+            if (version != 1 && version != DataRecorder.VERSION) {
+                throw new IOException("Unsupported recorder log version " + version);
+            }
+            // Version 1 has no groups, every channel is written every row
+            boolean grouped = version >= 2;
+
+            if (grouped) {
+                int groupCount = in.readInt();
+                for (int i = 0; i < groupCount; i++) {
+                    in.readFully(new byte[in.readShort()]);
+                }
+            }
+
+            int channelCount = in.readInt();
+            byte[] types = new byte[channelCount];
+            int[] groups = new int[channelCount];
+            List<String> names = new ArrayList<>();
+            int rowSize = grouped ? 16 : 8;
+            for (int i = 0; i < channelCount; i++) {
+                types[i] = in.readByte();
+                groups[i] = grouped ? in.readByte() : -1;
+                byte[] name = new byte[in.readShort()];
+                in.readFully(name);
+                names.add(new String(name, UTF_8));
+                rowSize += sizeOf(types[i]);
+            }
+
+            output.print("time (s)");
+            for (String name : names) {
+                output.print(',');
+                output.print(name);
+            }
+            output.println();
+
+            byte[] rowBytes = new byte[rowSize];
+            ByteBuffer row = ByteBuffer.wrap(rowBytes);
+            long firstTimestamp = -1;
+            while (true) {
+                try {
+                    in.readFully(rowBytes);
+                } catch (EOFException e) {
+                    break;
+                }
+                row.rewind();
+                long timestamp = row.getLong();
+                long groupMask = grouped ? row.getLong() : 0;
+                if (firstTimestamp < 0) firstTimestamp = timestamp;
+                output.print((timestamp - firstTimestamp) / 1e9);
+
+                for (int i = 0; i < channelCount; i++) {
+                    output.print(',');
+                    boolean written = groups[i] < 0 || (groupMask & (1L << groups[i])) != 0;
+                    switch (types[i]) {
+                        case DataRecorder.TYPE_DOUBLE:
+                            double d = row.getDouble();
+                            if (written) output.print(d);
+                            break;
+                        case DataRecorder.TYPE_INT:
+                            int n = row.getInt();
+                            if (written) output.print(n);
+                            break;
+                        case DataRecorder.TYPE_BOOLEAN:
+                            boolean b = row.get() != 0;
+                            if (written) output.print(b);
+                            break;
+                    }
+                }
+                output.println();
+            }
+        }
+    }
+
+    private static int sizeOf(byte type) throws IOException {
+        switch (type) {
+            case DataRecorder.TYPE_DOUBLE:
+                return 8;
+            case DataRecorder.TYPE_INT:
+                return 4;
+            case DataRecorder.TYPE_BOOLEAN:
+                return 1;
+            default:
+                throw new IOException("Unknown channel type " + type);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DataRecorderReader <log> [csv]");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File output = new File(args.length > 1 ? args[1] : args[0].replaceAll("\\.bin(\\.gz)?$", "") + ".csv");
+        try (PrintWriter writer = new PrintWriter(output)) {
+            convert(input, writer);
+        }
+    }
+}
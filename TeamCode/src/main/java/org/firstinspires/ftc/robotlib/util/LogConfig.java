@@ -0,0 +1,25 @@
+package org.firstinspires.ftc.robotlib.util;
+
+import com.acmerobotics.dashboard.config.Config;
+
+/**
+ * How often a subsystem's updateLogging() runs. Subsystems pass their own @Config LOG_CONFIG to
+ * AbstractSubsystem.setLogConfig() in their constructor, so each one's level can be changed from
+ * the dashboard while the OpMode runs. Subsystems without one read {@link #DEFAULT}.
+ */
+@Config
+public class LogConfig {
+    public static LogConfig DEFAULT = new LogConfig();
+
+    public LogLevel level = LogLevel.ALL;
+    public int samplePeriod = 10; // loops, when level is SAMPLED
+
+    public LogConfig() {
+
+    }
+
+    public LogConfig(LogLevel level, int samplePeriod) {
+        this.level = level;
+        this.samplePeriod = samplePeriod;
+    }
+}
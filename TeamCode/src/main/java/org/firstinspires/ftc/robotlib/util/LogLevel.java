@@ -0,0 +1,12 @@
+package org.firstinspires.ftc.robotlib.util;
+
+/*
+ * OFF: updateLogging() is never called, so none of its getters or hardware reads run
+ * SAMPLED: updateLogging() runs once every sample period loops
+ * ALL: updateLogging() runs every loop
+ */
+public enum LogLevel {
+    OFF,
+    SAMPLED,
+    ALL
+}
@@ -1,14 +1,38 @@
 package org.firstinspires.ftc.robotlib.util;
 
+import android.util.Log;
+
 import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Utility functions for log files.
+ *
+ * Log sizes are kept in an index (oldest first) so the quota can be checked without walking the log
+ * folder. The index is persisted as an append only journal and compacted once per app start. All
+ * index work, pruning and compression happens on a background thread, so getLogFile() only costs a
+ * mkdirs and a queued task.
  */
 public class LoggingUtil {
     public static final File ROAD_RUNNER_FOLDER =
@@ -16,45 +40,250 @@ public class LoggingUtil {
 
     private static final long LOG_QUOTA = 25 * 1024 * 1024; // 25MB log quota for now
 
-    private static void buildLogList(List<File> logFiles, File dir) {
-        for (File file : dir.listFiles()) {
-            if (file.isDirectory()) {
-                buildLogList(logFiles, file);
-            } else {
-                logFiles.add(file);
+    // Gzip logs once they're closed, DataRecorderReader can read the compressed recordings
+    public static boolean COMPRESS_CLOSED_LOGS = false;
+
+    private static final File INDEX_FILE = new File(ROAD_RUNNER_FOLDER, ".logindex");
+
+    /*
+     * Journal lines:
+     * + name        log opened, size unknown until it's closed
+     * = name size   log closed
+     * - name        log deleted
+     */
+    private static final String OPENED = "+", CLOSED = "=", DELETED = "-";
+
+    // Index, only touched on the executor thread //
+    private static LinkedHashMap<String, Long> logSizes; // path relative to ROAD_RUNNER_FOLDER -> bytes
+    private static Set<String> openLogs = new HashSet<>(); // never pruned
+    private static long totalSize = 0;
+    private static PrintWriter journal;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Log Index");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Obtain a log file with the provided name
+     */
+    public static File getLogFile(String name) {
+        //noinspection ResultOfMethodCallIgnored
+        ROAD_RUNNER_FOLDER.mkdirs();
+
+        executor.execute(() -> opened(name));
+
+        return new File(ROAD_RUNNER_FOLDER, name);
+    }
+
+    /**
+     * Record the final size of a log once it has been written, which may prune older logs
+     */
+    public static void closeLogFile(File file) {
+        String name = relativeName(file);
+        if (name == null) return;
+        executor.execute(() -> closed(name));
+    }
+
+    private static String relativeName(File file) {
+        String folder = ROAD_RUNNER_FOLDER.getAbsolutePath() + File.separator;
+        String path = file.getAbsolutePath();
+        return path.startsWith(folder) ? path.substring(folder.length()) : null;
+    }
+
+    // Executor thread //
+    private static void opened(String name) {
+        loadIndex();
+        remove(name); // an existing log with the same name is overwritten
+        logSizes.put(name, 0L);
+        openLogs.add(name);
+        append(OPENED, name);
+        pruneIfNecessary();
+    }
+
+    private static void closed(String name) {
+        loadIndex();
+        if (!openLogs.remove(name)) return; // already closed
+        File file = new File(ROAD_RUNNER_FOLDER, name);
+        if (!file.exists()) {
+            remove(name);
+            return;
+        }
+        if (COMPRESS_CLOSED_LOGS && !name.endsWith(".gz")) {
+            File compressed = compress(file);
+            if (compressed != null) {
+                remove(name);
+                name += ".gz";
+                file = compressed;
             }
         }
+        setSize(name, file.length());
+        append(CLOSED, name + "\t" + file.length());
+        pruneIfNecessary();
     }
 
-    private static void pruneLogsIfNecessary() {
-        List<File> logFiles = new ArrayList<>();
-        buildLogList(logFiles, ROAD_RUNNER_FOLDER);
-        Collections.sort(logFiles, (lhs, rhs) ->
-                Long.compare(lhs.lastModified(), rhs.lastModified()));
+    private static void setSize(String name, long size) {
+        Long oldSize = logSizes.put(name, size);
+        totalSize += size - (oldSize == null ? 0 : oldSize);
+    }
+
+    private static void remove(String name) {
+        Long size = logSizes.remove(name);
+        if (size == null) return;
+        totalSize -= size;
+        openLogs.remove(name);
+        append(DELETED, name);
+    }
+
+    /**
+     * Deletes the oldest closed logs until the folder is back under quota. Only costs anything when
+     * there is something to delete.
+     */
+    private static void pruneIfNecessary() {
+        if (totalSize <= LOG_QUOTA) return;
 
-        long dirSize = 0;
-        for (File file: logFiles) {
-            dirSize += file.length();
+        Iterator<Map.Entry<String, Long>> iterator = logSizes.entrySet().iterator();
+        while (totalSize > LOG_QUOTA && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (openLogs.contains(entry.getKey())) continue;
+
+            //noinspection ResultOfMethodCallIgnored
+            new File(ROAD_RUNNER_FOLDER, entry.getKey()).delete();
+            totalSize -= entry.getValue();
+            iterator.remove();
+            append(DELETED, entry.getKey());
         }
+    }
 
-        while (dirSize > LOG_QUOTA) {
-            if (logFiles.size() == 0) break;
-            File fileToRemove = logFiles.remove(0);
-            dirSize -= fileToRemove.length();
+    private static File compress(File file) {
+        File compressed = new File(file.getPath() + ".gz");
+        try (InputStream in = new FileInputStream(file);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+        } catch (IOException e) {
+            Log.e("LoggingUtil", "Could not compress " + file, e);
             //noinspection ResultOfMethodCallIgnored
-            fileToRemove.delete();
+            compressed.delete();
+            return null;
         }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        return compressed;
+    }
+
+    // Index //
+    private static void append(String operation, String entry) {
+        if (journal == null) return;
+        journal.println(operation + "\t" + entry);
+        journal.flush();
     }
 
     /**
-     * Obtain a log file with the provided name
+     * Replays the journal, or walks the folder if there isn't one yet, then rewrites the journal
+     * with one line per log. Runs once per app start.
      */
-    public static File getLogFile(String name) {
+    private static void loadIndex() {
+        if (logSizes != null) return;
+        logSizes = new LinkedHashMap<>();
+
         //noinspection ResultOfMethodCallIgnored
         ROAD_RUNNER_FOLDER.mkdirs();
+        if (!INDEX_FILE.exists() || !replayJournal()) {
+            logSizes.clear();
+            rebuildIndex();
+        }
 
-        pruneLogsIfNecessary();
+        // Logs deleted by hand are dropped, and logs the last run never closed are sized now
+        Iterator<Map.Entry<String, Long>> iterator = logSizes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            File file = new File(ROAD_RUNNER_FOLDER, entry.getKey());
+            if (!file.exists()) {
+                iterator.remove();
+            } else if (entry.getValue() == 0) {
+                entry.setValue(file.length());
+            }
+        }
+        totalSize = 0;
+        for (long size : logSizes.values()) {
+            totalSize += size;
+        }
 
-        return new File(ROAD_RUNNER_FOLDER, name);
+        compactJournal();
+    }
+
+    private static boolean replayJournal() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(INDEX_FILE))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                switch (parts[0]) {
+                    case OPENED:
+                        logSizes.remove(parts[1]);
+                        logSizes.put(parts[1], 0L);
+                        break;
+                    case CLOSED:
+                        logSizes.put(parts[1], Long.parseLong(parts[2]));
+                        break;
+                    case DELETED:
+                        logSizes.remove(parts[1]);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown journal line " + line);
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.e("LoggingUtil", "Could not read log index, rebuilding it", e);
+            return false;
+        }
+    }
+
+    private static void rebuildIndex() {
+        List<File> logFiles = new ArrayList<>();
+        buildLogList(logFiles, ROAD_RUNNER_FOLDER);
+        Collections.sort(logFiles, (lhs, rhs) ->
+                Long.compare(lhs.lastModified(), rhs.lastModified()));
+        for (File file : logFiles) {
+            logSizes.put(relativeName(file), file.length());
+        }
+    }
+
+    private static void buildLogList(List<File> logFiles, File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                buildLogList(logFiles, file);
+            } else if (!file.equals(INDEX_FILE)) {
+                logFiles.add(file);
+            }
+        }
+    }
+
+    private static void compactJournal() {
+        File compacted = new File(ROAD_RUNNER_FOLDER, INDEX_FILE.getName() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(compacted)) {
+            for (Map.Entry<String, Long> entry : logSizes.entrySet()) {
+                writer.println(CLOSED + "\t" + entry.getKey() + "\t" + entry.getValue());
+            }
+        } catch (IOException e) {
+            Log.e("LoggingUtil", "Could not write log index", e);
+        }
+        if (!compacted.renameTo(INDEX_FILE)) {
+            Log.e("LoggingUtil", "Could not replace log index");
+        }
+
+        try {
+            journal = new PrintWriter(new FileWriter(INDEX_FILE, true));
+        } catch (IOException e) {
+            Log.e("LoggingUtil", "Could not open log index", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package org.firstinspires.ftc.robotlib.util;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Records how long each phase of a subsystem's loop takes. Samples are kept in preallocated
+ * nanoTime ring buffers so recording never allocates.
+ */
+public class LoopTimer {
+    public static final int DEFAULT_CAPACITY = 512;
+
+    public enum Phase {
+        READ,
+        UPDATE,
+        WRITE,
+        TELEMETRY,
+        LOGGING
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final String name;
+    private final int capacity;
+    private final long[][] samples;
+    private final long[] sortBuffer;
+    private int index = 0;
+    private int count = 0;
+
+    // Precomputed so publishing stats doesn't build new labels every loop
+    private final String[] minLabels, meanLabels, p99Labels;
+
+    public LoopTimer(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        samples = new long[PHASES.length][capacity];
+        sortBuffer = new long[capacity];
+
+        minLabels = new String[PHASES.length];
+        meanLabels = new String[PHASES.length];
+        p99Labels = new String[PHASES.length];
+        for (Phase phase : PHASES) {
+            minLabels[phase.ordinal()] = name + " " + phase + " min (ms)";
+            meanLabels[phase.ordinal()] = name + " " + phase + " mean (ms)";
+            p99Labels[phase.ordinal()] = name + " " + phase + " p99 (ms)";
+        }
+    }
+
+    public LoopTimer(String name) {
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Store the duration of a phase for the current loop
+     */
+    public void record(Phase phase, long nanos) {
+        samples[phase.ordinal()][index] = nanos;
+    }
+
+    /**
+     * Finish the current loop and move on to the next slot in the ring buffer
+     */
+    public void endLoop() {
+        index = (index + 1) % capacity;
+        if (count < capacity) count++;
+    }
+
+    public void clear() {
+        for (long[] phaseSamples : samples) {
+            Arrays.fill(phaseSamples, 0);
+        }
+        index = 0;
+        count = 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getMin(Phase phase) {
+        if (count == 0) return 0;
+        long[] phaseSamples = samples[phase.ordinal()];
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, phaseSamples[i]);
+        }
+        return min;
+    }
+
+    public double getMean(Phase phase) {
+        if (count == 0) return 0;
+        long[] phaseSamples = samples[phase.ordinal()];
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += phaseSamples[i];
+        }
+        return (double) sum / count;
+    }
+
+    public long getPercentile(Phase phase, double percentile) {
+        if (count == 0) return 0;
+        System.arraycopy(samples[phase.ordinal()], 0, sortBuffer, 0, count);
+        Arrays.sort(sortBuffer, 0, count);
+        int i = (int) Math.ceil(percentile * count) - 1;
+        return sortBuffer[Math.max(0, Math.min(count - 1, i))];
+    }
+
+    public void putStats(TelemetryData telemetry) {
+        for (Phase phase : PHASES) {
+            int i = phase.ordinal();
+            telemetry.put(minLabels[i], nanosToMillis(getMin(phase)));
+            telemetry.put(meanLabels[i], nanosToMillis(getMean(phase)));
+            telemetry.put(p99Labels[i], nanosToMillis(getPercentile(phase, .99)));
+        }
+    }
+
+    /**
+     * Write every stored sample as a CSV row, oldest first
+     */
+    public void writeCsv(PrintWriter writer) {
+        int start = count < capacity ? 0 : index;
+        for (int n = 0; n < count; n++) {
+            int i = (start + n) % capacity;
+            writer.print(name);
+            writer.print(',');
+            writer.print(n);
+            for (Phase phase : PHASES) {
+                writer.print(',');
+                writer.print(samples[phase.ordinal()][i]);
+            }
+            writer.println();
+        }
+    }
+
+    public static void writeCsvHeader(PrintWriter writer) {
+        writer.print("subsystem,loop");
+        for (Phase phase : PHASES) {
+            writer.print(',');
+            writer.print(phase.toString().toLowerCase());
+            writer.print("_ns");
+        }
+        writer.println();
+    }
+
+    private static double nanosToMillis(double nanos) {
+        return nanos / 1e6;
+    }
+}
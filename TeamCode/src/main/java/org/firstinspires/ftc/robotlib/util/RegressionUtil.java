@@ -92,6 +92,7 @@ public class RegressionUtil {
             } catch (FileNotFoundException e) {
                 // ignore
             }
+            LoggingUtil.closeLogFile(file);
         }
 
         List<Double> velSamples = numericalDerivative(timeSamples, positionSamples);
@@ -132,6 +133,7 @@ public class RegressionUtil {
             } catch (FileNotFoundException e) {
                 // ignore
             }
+            LoggingUtil.closeLogFile(file);
         }
 
         List<Double> velSamples = numericalDerivative(timeSamples, positionSamples);
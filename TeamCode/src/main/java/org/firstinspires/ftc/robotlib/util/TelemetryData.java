@@ -3,22 +3,131 @@ package org.firstinspires.ftc.robotlib.util;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Telemetry for a single subsystem, with every key prefixed by the subsystem name.
+ *
+ * Values that are updated every loop should be registered once with {@link #addDouble(String)},
+ * {@link #addInt(String)}, {@link #addBoolean(String)} or {@link #addObject(String)}. The returned
+ * entry holds a primitive slot that is set without allocating, and is only formatted when the
+ * dashboard calls toString() on it while building a packet.
+ */
 public class TelemetryData {
     private String prefix;
     private Map<String, Object> data;
+    private Map<String, String> keys; // label -> prefixed key, so put() doesn't concatenate every call
 
     public TelemetryData(String prefix) {
         this.prefix = prefix;
         this.data = new HashMap<>();
+        this.keys = new HashMap<>();
     }
 
+    // Entries //
+    public static class DoubleEntry {
+        private volatile double value;
+
+        public void set(double value) {
+            this.value = value;
+        }
+        public double get() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    public static class IntEntry {
+        private volatile int value;
+
+        public void set(int value) {
+            this.value = value;
+        }
+        public int get() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    public static class BooleanEntry {
+        private volatile boolean value;
+
+        public void set(boolean value) {
+            this.value = value;
+        }
+        public boolean get() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    /*
+     * For values that are already objects (enums, cached strings) so setting them doesn't allocate
+     */
+    public static class ObjectEntry<T> {
+        private volatile T value;
+
+        public void set(T value) {
+            this.value = value;
+        }
+        public T get() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    public DoubleEntry addDouble(String label) {
+        DoubleEntry entry = new DoubleEntry();
+        data.put(key(label), entry);
+        return entry;
+    }
+    public IntEntry addInt(String label) {
+        IntEntry entry = new IntEntry();
+        data.put(key(label), entry);
+        return entry;
+    }
+    public BooleanEntry addBoolean(String label) {
+        BooleanEntry entry = new BooleanEntry();
+        data.put(key(label), entry);
+        return entry;
+    }
+    public <T> ObjectEntry<T> addObject(String label) {
+        ObjectEntry<T> entry = new ObjectEntry<>();
+        data.put(key(label), entry);
+        return entry;
+    }
+
+    // Unregistered values //
     public void put(String label, Object value) {
-        data.put(prefix + ": " + label, value);
+        data.put(key(label), value);
     }
     public void putAll(Map<String, Object> data) {
-        data.forEach(
-                (label, value) -> this.data.put(prefix + ": " + label, value)
-                );
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            this.data.put(key(entry.getKey()), entry.getValue());
+        }
+    }
+
+    private String key(String label) {
+        String key = keys.get(label);
+        if (key == null) {
+            key = prefix + ": " + label;
+            keys.put(label, key);
+        }
+        return key;
     }
 
     public Map<String, Object> getData() {
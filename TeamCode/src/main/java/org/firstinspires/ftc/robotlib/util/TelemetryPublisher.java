@@ -0,0 +1,137 @@
+package org.firstinspires.ftc.robotlib.util;
+
+import android.util.Log;
+
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.canvas.Canvas;
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends telemetry to the dashboard from a background thread so building and sending packets stays
+ * off the control loop.
+ *
+ * The loop thread fills the write frame and calls {@link #publish()}, which only swaps buffers. The
+ * publisher thread takes the newest ready frame at its own rate and coalesces it into a single
+ * packet. If the publisher falls behind, older frames are dropped rather than blocking the loop.
+ */
+public class TelemetryPublisher {
+    public static final long DEFAULT_INTERVAL_MS = 50;
+
+    private static class Frame {
+        // Reused every loop; overwriting existing keys doesn't allocate new entries
+        final Map<String, Object> data = new HashMap<>();
+        final Canvas fieldOverlay = new Canvas();
+    }
+
+    private final FtcDashboard dashboard;
+    private final long intervalMs;
+
+    private Frame writeFrame = new Frame(); // loop thread only
+    private Frame readyFrame = new Frame(); // guarded by this
+    private Frame sendFrame = new Frame();  // publisher thread only
+    private boolean frameReady = false;     // guarded by this
+
+    private ScheduledExecutorService executor;
+
+    private volatile int droppedFrames = 0;
+    private volatile int sentFrames = 0;
+
+    public TelemetryPublisher(FtcDashboard dashboard, long intervalMs) {
+        this.dashboard = dashboard;
+        this.intervalMs = intervalMs;
+    }
+
+    public TelemetryPublisher(FtcDashboard dashboard) {
+        this(dashboard, DEFAULT_INTERVAL_MS);
+    }
+
+    public synchronized void start() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Telemetry Publisher");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::send, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the publisher thread and sends whatever was published last
+     */
+    public void stop() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(intervalMs * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        send();
+    }
+
+    // Loop thread //
+    public void putAll(Map<String, Object> data) {
+        writeFrame.data.putAll(data);
+    }
+
+    public Canvas getFieldOverlay() {
+        return writeFrame.fieldOverlay;
+    }
+
+    /**
+     * Hand the current frame to the publisher thread. Never blocks for longer than a buffer swap.
+     */
+    public void publish() {
+        Frame published = writeFrame;
+        synchronized (this) {
+            if (frameReady) droppedFrames++;
+            writeFrame = readyFrame;
+            readyFrame = published;
+            frameReady = true;
+        }
+        // Carry the latest values forward so keys that weren't updated this loop aren't lost
+        writeFrame.data.putAll(published.data);
+        writeFrame.fieldOverlay.getOperations().clear();
+    }
+
+    // Publisher thread //
+    private void send() {
+        synchronized (this) {
+            if (!frameReady) return;
+            Frame ready = readyFrame;
+            readyFrame = sendFrame;
+            sendFrame = ready;
+            frameReady = false;
+        }
+        try {
+            TelemetryPacket packet = new TelemetryPacket();
+            packet.putAll(sendFrame.data);
+            packet.fieldOverlay().getOperations().addAll(sendFrame.fieldOverlay.getOperations());
+            dashboard.sendTelemetryPacket(packet);
+            sentFrames++;
+        } catch (RuntimeException e) {
+            // An exception would cancel every future send
+            Log.e("TelemetryPublisher", "Failed to send telemetry", e);
+        }
+    }
+
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public int getSentFrames() {
+        return sentFrames;
+    }
+}
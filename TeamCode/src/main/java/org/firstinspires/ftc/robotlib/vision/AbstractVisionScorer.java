@@ -13,6 +13,21 @@ public abstract class AbstractVisionScorer implements VisionScorer {
         telemetry = new TelemetryData(name);
     }
 
+    /*
+     * Most scorers are a weighted square error, which never goes below 0
+     */
+    public double getMinScore() {
+        return getWeight() >= 0 ? 0 : Double.NEGATIVE_INFINITY;
+    }
+
+    public double getCost() {
+        return 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
     public void updateTelemetry() {
 
     }
@@ -0,0 +1,161 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import android.content.Context;
+import android.content.res.XmlResourceParser;
+import android.util.Log;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Camera intrinsics in pixels and distortion coefficients, as written in teamwebcamcalibrations.xml.
+ * Distortion coefficients are in OpenCV's order, [k1, k2, p1, p2, k3, k4, k5, k6] (r0, r1, t0, t1,
+ * r2, r3, r4, r5 in the xml), missing ones are 0.
+ */
+public class CameraCalibration {
+    private static final String TAG = "CameraCalibration";
+
+    private final int width, height;
+    private final double fx, fy, cx, cy;
+    private final double[] distortion;
+
+    public CameraCalibration(int width, int height, double fx, double fy, double cx, double cy, double... distortion) {
+        this.width = width;
+        this.height = height;
+        this.fx = fx;
+        this.fy = fy;
+        this.cx = cx;
+        this.cy = cy;
+        this.distortion = Arrays.copyOf(distortion, 8);
+    }
+
+    /**
+     * Undistorted pinhole camera with the principal point in the center, pixel centers are at
+     * whole coordinates so that's ((width - 1) / 2, (height - 1) / 2)
+     *
+     * @param fovX horizontal field of view, radians
+     * @param fovY vertical field of view, radians
+     */
+    public static CameraCalibration fromFov(int width, int height, double fovX, double fovY) {
+        return new CameraCalibration(width, height,
+                width / 2.0 / Math.tan(fovX / 2.0), height / 2.0 / Math.tan(fovY / 2.0),
+                (width - 1) / 2.0, (height - 1) / 2.0);
+    }
+
+    /**
+     * Same calibration at another resolution with the same aspect ratio, the way the SDK serves a
+     * resolution that wasn't calibrated
+     */
+    public CameraCalibration scaledTo(int width, int height) {
+        if (width == this.width && height == this.height) return this;
+        double scale = (double) width / this.width;
+        return new CameraCalibration(width, height, fx * scale, fy * scale, cx * scale, cy * scale, distortion);
+    }
+
+    public boolean hasAspectRatio(int width, int height) {
+        return (long) width * this.height == (long) height * this.width;
+    }
+
+    /**
+     * Reads the calibration attributes of one Calibration element, e.g. size="640 480" and
+     * focalLength="622.001f, 622.001f"
+     */
+    public static CameraCalibration parse(String size, String focalLength, String principalPoint, String distortionCoefficients) {
+        double[] sizeValues = parseValues(size);
+        double[] focal = parseValues(focalLength);
+        double[] principal = parseValues(principalPoint);
+        double[] distortion = distortionCoefficients == null ? new double[0] : parseValues(distortionCoefficients);
+        if (sizeValues.length != 2 || focal.length != 2 || principal.length != 2 || distortion.length > 8) {
+            throw new IllegalArgumentException("Malformed calibration for size " + size);
+        }
+        return new CameraCalibration((int) sizeValues[0], (int) sizeValues[1],
+                focal[0], focal[1], principal[0], principal[1], distortion);
+    }
+
+    private static double[] parseValues(String values) {
+        if (values == null) throw new IllegalArgumentException("Missing calibration attribute");
+        String[] tokens = values.trim().split("[\\s,]+");
+        double[] parsed = new double[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            parsed[i] = Double.parseDouble(tokens[i]);
+        }
+        return parsed;
+    }
+
+    /**
+     * Finds the calibration for a camera in an xml resource laid out like teamwebcamcalibrations.xml.
+     * An exact size match is preferred, otherwise one with the same aspect ratio is scaled.
+     *
+     * @return null if the camera has no usable calibration
+     */
+    public static CameraCalibration load(Context context, int xmlId, String vid, String pid, int width, int height) {
+        CameraCalibration match = null;
+        XmlResourceParser parser = context.getResources().getXml(xmlId);
+        try {
+            boolean inCamera = false;
+            for (int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT; event = parser.next()) {
+                if (event == XmlPullParser.END_TAG && parser.getName().equals("Camera")) {
+                    inCamera = false;
+                }
+                if (event != XmlPullParser.START_TAG) continue;
+
+                if (parser.getName().equals("Camera")) {
+                    inCamera = vid.equalsIgnoreCase(parser.getAttributeValue(null, "vid"))
+                            && pid.equalsIgnoreCase(parser.getAttributeValue(null, "pid"));
+                } else if (inCamera && parser.getName().equals("Calibration")) {
+                    CameraCalibration calibration = parse(
+                            attribute(parser, "size", "size"),
+                            attribute(parser, "focalLength", "focal_length"),
+                            attribute(parser, "principalPoint", "principal_point"),
+                            attribute(parser, "distortionCoefficients", "distortion_coefficients"));
+                    if (calibration.width == width && calibration.height == height) return calibration;
+                    if (match == null && calibration.hasAspectRatio(width, height)) match = calibration;
+                }
+            }
+        } catch (XmlPullParserException | IOException | IllegalArgumentException e) {
+            Log.e(TAG, "Failed to read camera calibrations", e);
+            return null;
+        } finally {
+            parser.close();
+        }
+        return match == null ? null : match.scaledTo(width, height);
+    }
+
+    private static String attribute(XmlPullParser parser, String name, String underscoreName) {
+        String value = parser.getAttributeValue(null, name);
+        return value != null ? value : parser.getAttributeValue(null, underscoreName);
+    }
+
+    // Getters //
+    public int getWidth() {
+        return width;
+    }
+    public int getHeight() {
+        return height;
+    }
+
+    public double getFx() {
+        return fx;
+    }
+    public double getFy() {
+        return fy;
+    }
+    public double getCx() {
+        return cx;
+    }
+    public double getCy() {
+        return cy;
+    }
+
+    public double[] getDistortion() {
+        return distortion.clone();
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height + " f=(" + fx + ", " + fy + ") c=(" + cx + ", " + cy + ") d=" + Arrays.toString(distortion);
+    }
+}
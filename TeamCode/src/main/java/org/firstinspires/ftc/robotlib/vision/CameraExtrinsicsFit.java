@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.NelderMeadSimplex;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.SimplexOptimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the camera's pitch, yaw and height from points at known spots in robot coordinates (e.g.
+ * rings placed on the floor) and the pixels they were seen at, by minimizing the distance between
+ * where CameraModel projects each point and where it was seen.
+ *
+ * The camera's x and y stay as measured, they're easy to measure with a tape and hard to tell
+ * apart from yaw in the images.
+ */
+public class CameraExtrinsicsFit {
+    private static final int MAX_EVALUATIONS = 5000;
+    private static final double[] STEPS = {Math.toRadians(5), Math.toRadians(5), 2}; // pitch, yaw, height (in)
+
+    public static class Result {
+        public final double pitch, yaw, height;
+        public final double rmsError; // pixels
+
+        Result(double pitch, double yaw, double height, double rmsError) {
+            this.pitch = pitch;
+            this.yaw = yaw;
+            this.height = height;
+            this.rmsError = rmsError;
+        }
+    }
+
+    private final CameraModel model;
+    private final double missPenalty; // squared error of a point that doesn't project at all
+    private final List<double[]> pixels = new ArrayList<>();
+    private final List<Vector3D> points = new ArrayList<>();
+
+    public CameraExtrinsicsFit(CameraCalibration calibration) {
+        // A model of its own, so fitting doesn't move the one Vision projects with
+        model = new CameraModel(calibration);
+        missPenalty = Math.pow(calibration.getWidth() + calibration.getHeight(), 2);
+    }
+
+    /**
+     * @param u, v where the point was seen, in the full frame
+     * @param point where it really is, in robot coordinates
+     */
+    public void add(double u, double v, Vector3D point) {
+        pixels.add(new double[]{u, v});
+        points.add(point);
+    }
+
+    public void clear() {
+        pixels.clear();
+        points.clear();
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Needs at least two points, more spread across the image make for a better fit
+     *
+     * @param location measured camera location, only x and y are used
+     * @param pitch, yaw starting guess, radians
+     * @param height starting guess
+     */
+    public Result fit(Vector3D location, double pitch, double yaw, double height) {
+        if (size() < 2) throw new IllegalStateException("Need at least 2 points to fit, have " + size());
+
+        MultivariateFunction error = x -> squaredError(location, x[0], x[1], x[2]);
+        SimplexOptimizer optimizer = new SimplexOptimizer(1e-12, 1e-12);
+        PointValuePair best = optimizer.optimize(new MaxEval(MAX_EVALUATIONS),
+                new ObjectiveFunction(error),
+                GoalType.MINIMIZE,
+                new InitialGuess(new double[]{pitch, yaw, height}),
+                new NelderMeadSimplex(STEPS));
+
+        double[] x = best.getPoint();
+        return new Result(x[0], x[1], x[2], Math.sqrt(best.getValue() / size()));
+    }
+
+    private double squaredError(Vector3D location, double pitch, double yaw, double height) {
+        model.setExtrinsics(new Vector3D(location.getX(), location.getY(), height), pitch, yaw);
+        double error = 0;
+        for (int i = 0; i < points.size(); i++) {
+            double[] projected = model.project(points.get(i));
+            if (projected == null) {
+                error += missPenalty;
+                continue;
+            }
+            double du = projected[0] - pixels.get(i)[0];
+            double dv = projected[1] - pixels.get(i)[1];
+            error += du * du + dv * dv;
+        }
+        return error;
+    }
+}
@@ -0,0 +1,156 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+/**
+ * Projects pixels to the field and back using a calibrated camera (intrinsics and distortion) and
+ * where it sits on the robot (extrinsics).
+ *
+ * Undoing lens distortion has no closed form, so the undistorted ray through every pixel center is
+ * solved once when the model is made, like the maps from initUndistortRectifyMap but from distorted
+ * to undistorted. Projecting a detection is then a bilinear lookup in that table, a rotation and a
+ * plane intersection.
+ *
+ * The robot frame is x forward, y left and z up, the same as RobotMap. Pitch is positive pointing
+ * down and yaw is positive turning left.
+ */
+public class CameraModel {
+    private static final int UNDISTORT_ITERATIONS = 20;
+
+    private final CameraCalibration calibration;
+    private final double[] distortion;
+    private final int width, height;
+    private final float[] rays; // undistorted normalized x, y per pixel center, row major
+
+    // Extrinsics, the rotation takes camera (x right, y down, z forward) to robot coordinates
+    private double pitch = Double.NaN, yaw = Double.NaN;
+    private Vector3D location = Vector3D.ZERO;
+    private double r00, r01, r02, r10, r11, r12, r20, r21, r22;
+
+    public CameraModel(CameraCalibration calibration) {
+        this.calibration = calibration;
+        distortion = calibration.getDistortion();
+        width = calibration.getWidth();
+        height = calibration.getHeight();
+        rays = new float[width * height * 2];
+
+        double[] ray = new double[2];
+        for (int v = 0, i = 0; v < height; v++) {
+            for (int u = 0; u < width; u++, i += 2) {
+                undistort(u, v, ray);
+                rays[i] = (float) ray[0];
+                rays[i + 1] = (float) ray[1];
+            }
+        }
+        setExtrinsics(Vector3D.ZERO, 0, 0);
+    }
+
+    /**
+     * Only recomputes the rotation if the pose changed, so it's cheap to call before every
+     * projection with values that can be tuned from the dashboard
+     */
+    public void setExtrinsics(Vector3D location, double pitch, double yaw) {
+        this.location = location;
+        if (pitch == this.pitch && yaw == this.yaw) return;
+        this.pitch = pitch;
+        this.yaw = yaw;
+
+        double cp = Math.cos(pitch), sp = Math.sin(pitch);
+        double cy = Math.cos(yaw), sy = Math.sin(yaw);
+        // Yaw * Pitch * (camera axes in robot coordinates: right = -y, down = -z, forward = x)
+        r00 = sy;  r01 = -cy * sp; r02 = cy * cp;
+        r10 = -cy; r11 = -sy * sp; r12 = sy * cp;
+        r20 = 0;   r21 = -cp;      r22 = -sp;
+    }
+
+    /*
+     * Inverts the distortion model by fixed point iteration, as in OpenCV's undistortPoints
+     */
+    private void undistort(double u, double v, double[] out) {
+        double[] d = distortion;
+        double k1 = d[0], k2 = d[1], p1 = d[2], p2 = d[3], k3 = d[4], k4 = d[5], k5 = d[6], k6 = d[7];
+        double x0 = (u - calibration.getCx()) / calibration.getFx();
+        double y0 = (v - calibration.getCy()) / calibration.getFy();
+        double x = x0, y = y0;
+        for (int i = 0; i < UNDISTORT_ITERATIONS; i++) {
+            double r2 = x * x + y * y;
+            double inverseRadial = (1 + ((k6 * r2 + k5) * r2 + k4) * r2) / (1 + ((k3 * r2 + k2) * r2 + k1) * r2);
+            double dx = 2 * p1 * x * y + p2 * (r2 + 2 * x * x);
+            double dy = p1 * (r2 + 2 * y * y) + 2 * p2 * x * y;
+            x = (x0 - dx) * inverseRadial;
+            y = (y0 - dy) * inverseRadial;
+        }
+        out[0] = x;
+        out[1] = y;
+    }
+
+    /**
+     * Where the ray through a pixel meets the horizontal plane at planeHeight, in robot coordinates.
+     * Pixel coordinates are continuous, the center of the top left pixel is (0, 0).
+     *
+     * @return null if the pixel is outside the image or the ray doesn't reach the plane
+     */
+    public Vector3D projectToPlane(double u, double v, double planeHeight) {
+        if (!(u >= 0 && v >= 0 && u <= width - 1 && v <= height - 1)) return null;
+
+        // Bilinear lookup of the undistorted ray
+        int u0 = Math.min((int) u, width - 2), v0 = Math.min((int) v, height - 2);
+        double fu = u - u0, fv = v - v0;
+        int i = (v0 * width + u0) * 2, below = i + width * 2;
+        double top = rays[i] + (rays[i + 2] - rays[i]) * fu;
+        double bottom = rays[below] + (rays[below + 2] - rays[below]) * fu;
+        double x = top + (bottom - top) * fv;
+        top = rays[i + 1] + (rays[i + 3] - rays[i + 1]) * fu;
+        bottom = rays[below + 1] + (rays[below + 3] - rays[below + 1]) * fu;
+        double y = top + (bottom - top) * fv;
+
+        double dx = r00 * x + r01 * y + r02;
+        double dy = r10 * x + r11 * y + r12;
+        double dz = r20 * x + r21 * y + r22;
+        double t = (planeHeight - location.getZ()) / dz;
+        if (!(t > 0) || Double.isInfinite(t)) return null;
+        return new Vector3D(location.getX() + t * dx, location.getY() + t * dy, planeHeight);
+    }
+
+    /**
+     * Pixel a point in robot coordinates appears at, with distortion, as {u, v}
+     *
+     * @return null if the point is behind the camera
+     */
+    public double[] project(Vector3D point) {
+        double px = point.getX() - location.getX();
+        double py = point.getY() - location.getY();
+        double pz = point.getZ() - location.getZ();
+        // Transpose of the camera to robot rotation
+        double cx = r00 * px + r10 * py + r20 * pz;
+        double cy = r01 * px + r11 * py + r21 * pz;
+        double cz = r02 * px + r12 * py + r22 * pz;
+        if (cz <= 0) return null;
+
+        double x = cx / cz, y = cy / cz;
+        double[] d = distortion;
+        double r2 = x * x + y * y;
+        double radial = (1 + ((d[4] * r2 + d[1]) * r2 + d[0]) * r2) / (1 + ((d[7] * r2 + d[6]) * r2 + d[5]) * r2);
+        double xd = x * radial + 2 * d[2] * x * y + d[3] * (r2 + 2 * x * x);
+        double yd = y * radial + d[2] * (r2 + 2 * y * y) + 2 * d[3] * x * y;
+        return new double[]{
+                calibration.getFx() * xd + calibration.getCx(),
+                calibration.getFy() * yd + calibration.getCy()};
+    }
+
+    /**
+     * Rotates a point in robot coordinates into the camera's own axes (x forward, y left, z up)
+     * around the camera
+     */
+    public Vector3D toCameraFrame(Vector3D point) {
+        Vector3D p = point.subtract(location);
+        double right = r00 * p.getX() + r10 * p.getY() + r20 * p.getZ();
+        double down = r01 * p.getX() + r11 * p.getY() + r21 * p.getZ();
+        double forward = r02 * p.getX() + r12 * p.getY() + r22 * p.getZ();
+        return new Vector3D(forward, -right, -down);
+    }
+
+    public CameraCalibration getCalibration() {
+        return calibration;
+    }
+}
@@ -0,0 +1,52 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import java.util.ArrayDeque;
+
+/**
+ * Bounded queue between two pipeline stages. When it's full the oldest item is pushed out and
+ * handed back to the producer (so e.g. its Mats can be reused), because a newer frame is always
+ * worth more than a stale one.
+ */
+public class DropOldestQueue<T> {
+    private final ArrayDeque<T> items;
+    private final int capacity;
+    private long dropped = 0;
+
+    public DropOldestQueue(int capacity) {
+        this.capacity = capacity;
+        items = new ArrayDeque<>(capacity + 1);
+    }
+
+    /**
+     * @return the item that was dropped to make room, or null
+     */
+    public synchronized T offer(T item) {
+        T evicted = null;
+        if (items.size() >= capacity) {
+            evicted = items.pollFirst();
+            dropped++;
+        }
+        items.addLast(item);
+        notifyAll();
+        return evicted;
+    }
+
+    public synchronized T take() throws InterruptedException {
+        while (items.isEmpty()) {
+            wait();
+        }
+        return items.pollFirst();
+    }
+
+    public synchronized T poll() {
+        return items.pollFirst();
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,163 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import android.util.Log;
+
+import org.firstinspires.ftc.robotlib.util.LoggingUtil;
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps the last few raw camera frames in memory, with when they arrived and what was detected in
+ * them, so there is evidence of what the camera saw after a match without writing anything to
+ * storage while it runs.
+ *
+ * Each slot's Mat is allocated by the first frame copied into it and reused after that. dump()
+ * writes the frames oldest first to a frame sequence (replay it with FrameReplay) and a CSV of
+ * timestamps and results, on a low priority background thread. Frames that arrive while a dump is
+ * being written aren't recorded.
+ */
+public class FrameHistory<T> {
+    private static final String TAG = "FrameHistory";
+
+    /**
+     * Turns a frame's results into CSV columns matching the header
+     */
+    public interface ResultFormatter<T> {
+        String format(List<T> results);
+    }
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Frame Dump");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Mat[] frames;
+    private final long[] timestamps;
+    private final List<List<T>> results;
+    private int start = 0, size = 0;
+    private boolean dumping = false;
+
+    private final String resultsHeader;
+    private final ResultFormatter<T> formatter;
+
+    public FrameHistory(int capacity, String resultsHeader, ResultFormatter<T> formatter) {
+        frames = new Mat[capacity];
+        timestamps = new long[capacity];
+        results = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            frames[i] = new Mat();
+            results.add(null);
+        }
+        this.resultsHeader = resultsHeader;
+        this.formatter = formatter;
+    }
+
+    // Camera thread //
+    /**
+     * Copies the frame into the oldest slot, call before anything is drawn on it
+     */
+    public synchronized void record(Mat frame, long timestamp) {
+        if (dumping || frames.length == 0) return;
+
+        int i;
+        if (size < frames.length) {
+            i = (start + size) % frames.length;
+            size++;
+        } else {
+            i = start;
+            start = (start + 1) % frames.length;
+        }
+        frame.copyTo(frames[i]);
+        timestamps[i] = timestamp;
+        results.set(i, null);
+    }
+
+    /**
+     * Attaches results to the frame recorded with the same timestamp, if it's still kept
+     */
+    public synchronized void setResults(long timestamp, List<T> frameResults) {
+        for (int j = size - 1; j >= 0; j--) {
+            int i = (start + j) % frames.length;
+            if (timestamps[i] == timestamp) {
+                results.set(i, frameResults);
+                return;
+            }
+        }
+    }
+
+    // Any thread //
+    /**
+     * Writes every kept frame to name.frames and name.csv in the log folder in the background.
+     * Does nothing if a dump is already being written.
+     */
+    public void dump(String name) {
+        dump(name, null);
+    }
+
+    /**
+     * Like dump(String), but writes to folder instead of the log folder when it isn't null
+     *
+     * @return completes once the dump is written, or null if nothing was dumped
+     */
+    public Future<?> dump(String name, File folder) {
+        final List<Mat> ordered = new ArrayList<>();
+        final List<Long> orderedTimestamps = new ArrayList<>();
+        final List<List<T>> orderedResults = new ArrayList<>();
+        synchronized (this) {
+            if (dumping || size == 0) return null;
+            dumping = true;
+            for (int j = 0; j < size; j++) {
+                int i = (start + j) % frames.length;
+                ordered.add(frames[i]);
+                orderedTimestamps.add(timestamps[i]);
+                orderedResults.add(results.get(i));
+            }
+        }
+
+        return executor.submit(() -> {
+            String sequenceName = name + FrameReplay.SEQUENCE_EXTENSION;
+            String csvName = name + ".csv";
+            File sequenceFile = folder == null ? LoggingUtil.getLogFile(sequenceName) : new File(folder, sequenceName);
+            File csvFile = folder == null ? LoggingUtil.getLogFile(csvName) : new File(folder, csvName);
+            try {
+                FrameReplay.writeSequence(sequenceFile, ordered);
+                try (PrintWriter writer = new PrintWriter(csvFile)) {
+                    writer.println("frame,timestamp (ns)," + resultsHeader);
+                    for (int j = 0; j < ordered.size(); j++) {
+                        List<T> frameResults = orderedResults.get(j);
+                        writer.println(j + "," + orderedTimestamps.get(j) + ","
+                                + (frameResults == null ? "" : formatter.format(frameResults)));
+                    }
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to dump frames to " + sequenceFile, e);
+            } finally {
+                if (folder == null) {
+                    LoggingUtil.closeLogFile(sequenceFile);
+                    LoggingUtil.closeLogFile(csvFile);
+                }
+                synchronized (this) {
+                    dumping = false;
+                }
+            }
+        });
+    }
+
+    public synchronized boolean isDumping() {
+        return dumping;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
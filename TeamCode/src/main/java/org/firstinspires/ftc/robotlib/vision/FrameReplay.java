@@ -0,0 +1,164 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.openftc.easyopencv.OpenCvPipeline;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Feeds saved frames through an OpenCvPipeline without a camera, so pipelines can be tuned and
+ * regression tested on a laptop. Frames are either a folder of images (what Vision.saveOutput()
+ * captures) or a frame sequence file, which stores raw Mats so nothing is lost to compression.
+ *
+ * Only uses plain Java and OpenCV, so it runs against a desktop OpenCV build.
+ */
+public class FrameReplay {
+    public static final int SEQUENCE_MAGIC = 0x46524d53; // "FRMS"
+    public static final String SEQUENCE_EXTENSION = ".frames";
+
+    public interface FrameListener {
+        /**
+         * Called on the replay thread after each frame, while the pipeline's results for it are
+         * still current
+         */
+        void onFrame(int index, Mat output, long processNanos);
+    }
+
+    private final OpenCvPipeline pipeline;
+    private final List<Mat> frames;
+
+    public FrameReplay(OpenCvPipeline pipeline, List<Mat> frames) {
+        this.pipeline = pipeline;
+        this.frames = frames;
+    }
+
+    public FrameReplay(OpenCvPipeline pipeline, File source) throws IOException {
+        this(pipeline, loadFrames(source));
+    }
+
+    /**
+     * Run every frame through the pipeline once
+     *
+     * @param fps frames per second to feed the pipeline at, or 0 to run as fast as possible
+     * @return processing time of each frame in nanoseconds
+     */
+    public long[] run(double fps, FrameListener listener) throws InterruptedException {
+        long[] times = new long[frames.size()];
+        long period = fps > 0 ? (long) (1e9 / fps) : 0;
+        long nextFrame = System.nanoTime();
+
+        // Like the camera, every frame is copied into the same input buffer
+        Mat input = new Mat();
+        for (int i = 0; i < frames.size(); i++) {
+            if (period > 0) {
+                long wait = nextFrame - System.nanoTime();
+                if (wait > 0) Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                nextFrame += period;
+            }
+            frames.get(i).copyTo(input);
+
+            long start = System.nanoTime();
+            Mat output = pipeline.processFrame(input);
+            times[i] = System.nanoTime() - start;
+
+            if (listener != null) listener.onFrame(i, output, times[i]);
+        }
+        input.release();
+        return times;
+    }
+
+    public List<Mat> getFrames() {
+        return frames;
+    }
+
+    // Loading //
+    /**
+     * Loads a folder of images in filename order, or a frame sequence file. Images are converted
+     * to RGBA to match what the camera gives the pipeline.
+     */
+    public static List<Mat> loadFrames(File source) throws IOException {
+        if (source.isDirectory()) {
+            File[] files = source.listFiles((dir, name) ->
+                    name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(SEQUENCE_EXTENSION));
+            if (files == null) throw new IOException("Could not list " + source);
+            Arrays.sort(files);
+
+            List<Mat> frames = new ArrayList<>();
+            for (File file : files) {
+                frames.addAll(loadFrames(file));
+            }
+            return frames;
+        }
+        if (source.getName().endsWith(SEQUENCE_EXTENSION)) {
+            return readSequence(source);
+        }
+
+        Mat frame = Imgcodecs.imread(source.getAbsolutePath());
+        if (frame.empty()) throw new IOException("Could not read " + source);
+        Imgproc.cvtColor(frame, frame, Imgproc.COLOR_BGR2RGBA);
+        List<Mat> frames = new ArrayList<>();
+        frames.add(frame);
+        return frames;
+    }
+
+    /*
+     * Sequence file layout (big endian): int magic, then per frame int rows, int cols, int type and
+     * the pixel data. Only 8 bit frames (what the camera produces) are supported.
+     */
+    public static List<Mat> readSequence(File file) throws IOException {
+        List<Mat> frames = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SEQUENCE_MAGIC) throw new IOException(file + " is not a frame sequence");
+            while (true) {
+                int rows;
+                try {
+                    rows = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int cols = in.readInt();
+                int type = in.readInt();
+
+                Mat frame = new Mat(rows, cols, type);
+                byte[] data = new byte[(int) (frame.total() * frame.elemSize())];
+                in.readFully(data);
+                frame.put(0, 0, data);
+                frames.add(frame);
+            }
+        }
+        return frames;
+    }
+
+    public static void writeSequence(File file, List<Mat> frames) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(SEQUENCE_MAGIC);
+            byte[] data = new byte[0];
+            for (Mat frame : frames) {
+                // put/get need a continuous Mat
+                Mat continuous = frame.isContinuous() ? frame : frame.clone();
+                int size = (int) (continuous.total() * continuous.elemSize());
+                if (data.length != size) data = new byte[size];
+                continuous.get(0, 0, data);
+
+                out.writeInt(continuous.rows());
+                out.writeInt(continuous.cols());
+                out.writeInt(continuous.type());
+                out.write(data, 0, size);
+                if (continuous != frame) continuous.release();
+            }
+        }
+    }
+}
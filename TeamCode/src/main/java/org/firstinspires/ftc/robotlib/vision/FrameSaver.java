@@ -0,0 +1,67 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import android.util.Log;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Saves single camera frames as PNGs on a low priority background thread, so the camera thread only
+ * pays for a copy of the frame. Saved frames are lossless and can be loaded back with
+ * FrameReplay.loadFrames().
+ */
+public class FrameSaver {
+    private static final String TAG = "FrameSaver";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Frame Save");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Copies the RGBA frame and writes the copy in the background, the frame can be reused as soon
+     * as this returns
+     *
+     * @return completes with the file once it's written
+     */
+    public static Future<File> save(Mat frame, File file) {
+        final Mat copy = frame.clone();
+        return executor.submit(() -> {
+            try {
+                write(copy, file);
+                return file;
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save frame", e);
+                throw e;
+            } finally {
+                copy.release();
+            }
+        });
+    }
+
+    /**
+     * Writes an RGBA frame on the calling thread, converting it to the BGR order image files use
+     */
+    public static void write(Mat frame, File file) throws IOException {
+        File folder = file.getParentFile();
+        //noinspection ResultOfMethodCallIgnored
+        if (folder != null) folder.mkdirs();
+
+        Mat bgr = new Mat();
+        try {
+            Imgproc.cvtColor(frame, bgr, Imgproc.COLOR_RGBA2BGR);
+            if (!Imgcodecs.imwrite(file.getAbsolutePath(), bgr)) throw new IOException("Could not write " + file);
+        } finally {
+            bgr.release();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import java.util.Arrays;
+
+/**
+ * Bounding box, area and outer contour of every label in a label image (e.g. watershed markers),
+ * from one pass over the pixels plus a boundary trace per label, instead of building a mask and
+ * calling findContours for each label.
+ *
+ * Buffers are kept between calls and only grow, so scanning frames of the same size doesn't
+ * allocate. Contours are 8-connected, clockwise, with points on straight runs left out like
+ * CHAIN_APPROX_SIMPLE, stored as x, y pairs.
+ */
+public class LabelRegions {
+    // Clockwise with y down, starting east
+    private static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] DY = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private int labelCount = 0;
+    private int[] minX = new int[0], minY = new int[0], maxX = new int[0], maxY = new int[0];
+    private int[] areas = new int[0];
+    private int[] firstPixel = new int[0]; // first pixel in raster order, always on the boundary
+    private int[][] contours = new int[0][];
+    private int[] contourLengths = new int[0]; // points
+
+    /**
+     * Labels 1 to labelCount are measured, anything else (background, watershed borders) is ignored
+     */
+    public void scan(int[] labels, int width, int height, int labelCount) {
+        ensureCapacity(labelCount + 1);
+        this.labelCount = labelCount;
+        for (int label = 1; label <= labelCount; label++) {
+            minX[label] = Integer.MAX_VALUE;
+            minY[label] = Integer.MAX_VALUE;
+            maxX[label] = -1;
+            maxY[label] = -1;
+            areas[label] = 0;
+            firstPixel[label] = -1;
+            contourLengths[label] = 0;
+        }
+
+        for (int y = 0, i = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i++) {
+                int label = labels[i];
+                if (label < 1 || label > labelCount) continue;
+
+                if (firstPixel[label] < 0) {
+                    firstPixel[label] = i;
+                    minY[label] = y;
+                }
+                if (x < minX[label]) minX[label] = x;
+                if (x > maxX[label]) maxX[label] = x;
+                maxY[label] = y;
+                areas[label]++;
+            }
+        }
+
+        for (int label = 1; label <= labelCount; label++) {
+            if (firstPixel[label] >= 0) trace(labels, width, height, label);
+        }
+    }
+
+    /*
+     * Moore neighbour tracing of the region containing the label's first pixel. Stops when the
+     * start pixel is about to be left in the same direction as the first step.
+     */
+    private void trace(int[] labels, int width, int height, int label) {
+        int start = firstPixel[label];
+        int x = start % width, y = start / width;
+        // Nothing above or to the left of the first pixel, so start searching from the west
+        int backtrack = 4;
+        int firstDirection = -1, lastDirection = -1;
+        int maxSteps = 4 * areas[label] + 4;
+
+        for (int step = 0; step < maxSteps; step++) {
+            int direction = -1;
+            for (int k = 1; k <= 8; k++) {
+                int d = (backtrack + k) & 7;
+                int nx = x + DX[d], ny = y + DY[d];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && labels[ny * width + nx] == label) {
+                    direction = d;
+                    break;
+                }
+            }
+            if (direction < 0) {
+                // Single pixel
+                addPoint(label, x, y);
+                return;
+            }
+            if (firstDirection >= 0 && y * width + x == start && direction == firstDirection) return;
+            if (firstDirection < 0) firstDirection = direction;
+
+            // Corners only, skip points in the middle of a straight run
+            if (direction != lastDirection) addPoint(label, x, y);
+            lastDirection = direction;
+
+            x += DX[direction];
+            y += DY[direction];
+            // Continue from the last background neighbour checked before this pixel, as seen from it
+            backtrack = (direction & 1) == 0 ? (direction + 6) & 7 : (direction + 5) & 7;
+        }
+    }
+
+    private void addPoint(int label, int x, int y) {
+        int[] contour = contours[label];
+        int length = contourLengths[label];
+        if (contour == null || contour.length < (length + 1) * 2) {
+            contour = contours[label] = Arrays.copyOf(contour == null ? new int[0] : contour, Math.max(16, (length + 1) * 4));
+        }
+        contour[length * 2] = x;
+        contour[length * 2 + 1] = y;
+        contourLengths[label] = length + 1;
+    }
+
+    private void ensureCapacity(int size) {
+        if (areas.length >= size) return;
+        minX = Arrays.copyOf(minX, size);
+        minY = Arrays.copyOf(minY, size);
+        maxX = Arrays.copyOf(maxX, size);
+        maxY = Arrays.copyOf(maxY, size);
+        areas = Arrays.copyOf(areas, size);
+        firstPixel = Arrays.copyOf(firstPixel, size);
+        contours = Arrays.copyOf(contours, size);
+        contourLengths = Arrays.copyOf(contourLengths, size);
+    }
+
+    // Getters, labels start at 1 //
+    public int getLabelCount() {
+        return labelCount;
+    }
+
+    /**
+     * 0 if the label doesn't appear in the image
+     */
+    public int getArea(int label) {
+        return areas[label];
+    }
+
+    public int getMinX(int label) {
+        return minX[label];
+    }
+    public int getMinY(int label) {
+        return minY[label];
+    }
+    public int getMaxX(int label) {
+        return maxX[label];
+    }
+    public int getMaxY(int label) {
+        return maxY[label];
+    }
+
+    /**
+     * x, y pairs, only the first 2 * getContourLength(label) values are valid
+     */
+    public int[] getContour(int label) {
+        return contours[label];
+    }
+    public int getContourLength(int label) {
+        return contourLengths[label];
+    }
+}
@@ -0,0 +1,37 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands results from the camera thread to the control loop. The camera thread sorts a private
+ * copy and publishes it as an immutable snapshot, so readers never sort, lock or see a list that
+ * is still being built.
+ */
+public class ResultPublisher<T> {
+    private final Comparator<? super T> order;
+    private final AtomicReference<VisionSnapshot<T>> latest;
+    private long sequence = 0; // camera thread only
+
+    public ResultPublisher(Comparator<? super T> order) {
+        this.order = order;
+        latest = new AtomicReference<>(new VisionSnapshot<>(Collections.<T>emptyList(), System.nanoTime(), 0));
+    }
+
+    // Camera thread //
+    public VisionSnapshot<T> publish(List<T> results, long timestamp) {
+        List<T> sorted = new ArrayList<>(results);
+        Collections.sort(sorted, order);
+        VisionSnapshot<T> snapshot = new VisionSnapshot<>(Collections.unmodifiableList(sorted), timestamp, ++sequence);
+        latest.set(snapshot);
+        return snapshot;
+    }
+
+    // Any thread //
+    public VisionSnapshot<T> getLatest() {
+        return latest.get();
+    }
+}
@@ -0,0 +1,98 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
+import org.firstinspires.ftc.teamcode.vision.RingData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sums VisionScorers for a contour, cheapest first, and stops as soon as the partial score plus the
+ * lowest the remaining scorers could add ({@link VisionScorer#getMinScore()}) is over the threshold.
+ *
+ * Scorers are ordered by their declared {@link VisionScorer#getCost()} when they're added, timing
+ * them per call would cost as much as the cheap ones and would charge RingData's memoized features
+ * to whichever scorer happened to run first. Telemetry has how many contours each scorer rejected
+ * in the last frame.
+ */
+public class ScoringChain {
+    private static class Stage {
+        final VisionScorer scorer;
+        int rejections = 0; // this frame
+
+        final TelemetryData.IntEntry rejectionEntry;
+
+        Stage(VisionScorer scorer, TelemetryData telemetry) {
+            this.scorer = scorer;
+            rejectionEntry = telemetry.addInt(scorer.getName() + " rejections");
+        }
+    }
+
+    private final TelemetryData telemetry = new TelemetryData("Scoring");
+    private Stage[] stages = new Stage[0];
+    private double[] remainingMin = new double[0];
+    private final List<VisionScorer> scorers = new ArrayList<>();
+
+    /**
+     * Goes after every scorer that doesn't cost more, so equal costs keep the order they were added in
+     */
+    public void add(VisionScorer scorer) {
+        Stage stage = new Stage(scorer, telemetry);
+        stages = Arrays.copyOf(stages, stages.length + 1);
+        int i = stages.length - 1;
+        while (i > 0 && stages[i - 1].scorer.getCost() > scorer.getCost()) {
+            stages[i] = stages[i - 1];
+            i--;
+        }
+        stages[i] = stage;
+        remainingMin = new double[stages.length];
+        scorers.add(scorer);
+    }
+
+    /**
+     * Total score if every scorer ran, otherwise a lower bound on it that is already over threshold
+     */
+    public double score(RingData ringData, double threshold) {
+        // Lowest the scorers after each stage could still add, weights can change from the dashboard
+        double remaining = 0;
+        for (int i = stages.length - 1; i >= 0; i--) {
+            remainingMin[i] = remaining;
+            remaining += stages[i].scorer.getMinScore();
+        }
+
+        double score = 0;
+        for (int i = 0; i < stages.length; i++) {
+            Stage stage = stages[i];
+            score += stage.scorer.score(ringData);
+
+            if (score + remainingMin[i] > threshold) {
+                stage.rejections++;
+                return score + remainingMin[i];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Publishes the rejection counts for the frame
+     */
+    public void endFrame() {
+        for (Stage stage : stages) {
+            stage.rejectionEntry.set(stage.rejections);
+            stage.rejections = 0;
+        }
+    }
+
+    /**
+     * In the order they were added
+     */
+    public List<VisionScorer> getScorers() {
+        return scorers;
+    }
+
+    public Map<String, Object> getTelemetryData() {
+        return telemetry.getData();
+    }
+}
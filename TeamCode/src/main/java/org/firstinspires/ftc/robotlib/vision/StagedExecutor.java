@@ -0,0 +1,183 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Runs a fixed chain of stages, each on its own thread, with a bounded drop-oldest queue in front
+ * of every stage. Stages work on different frames at the same time, so throughput is limited by
+ * the slowest stage instead of the sum of all of them, and a slow frame never holds up the camera.
+ *
+ * Jobs (e.g. a frame and the Mats every stage writes into) are preallocated by the caller and
+ * recycled: acquire() one, fill it in and submit() it. A job that is dropped from a queue or has
+ * been through every stage goes back to the pool.
+ *
+ * Each stage keeps a moving average of its time per job, the slowest one limits throughput.
+ */
+public class StagedExecutor<T> {
+    private static final String TAG = "StagedExecutor";
+    private static final long STOP_TIMEOUT_MS = 1000;
+    private static final double TIME_SMOOTHING = 0.05;
+
+    public interface Stage<T> {
+        void process(T job);
+    }
+
+    public interface Listener<T> {
+        /**
+         * Called on the last stage's thread once a job has been through every stage, before it is
+         * recycled
+         */
+        void onComplete(T job);
+    }
+
+    private final ArrayBlockingQueue<T> free;
+    private final DropOldestQueue<T>[] queues; // queues[i] feeds stages[i]
+    private final Stage<T>[] stages;
+    private final Listener<T> listener;
+    private Thread[] threads;
+    private volatile long unavailable = 0; // frames dropped because every job was in use
+    private final AtomicLongArray stageNanos; // moving average per stage, written by its thread
+
+    /**
+     * @param jobs at least stages * (queueCapacity + 1) + 1, so acquire() always has one to give
+     */
+    @SuppressWarnings("unchecked")
+    public StagedExecutor(List<T> jobs, int queueCapacity, Listener<T> listener, List<Stage<T>> stages) {
+        free = new ArrayBlockingQueue<>(jobs.size(), false, jobs);
+        this.stages = stages.toArray(new Stage[0]);
+        this.listener = listener;
+        queues = new DropOldestQueue[this.stages.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new DropOldestQueue<>(queueCapacity);
+        }
+        stageNanos = new AtomicLongArray(this.stages.length);
+    }
+
+    public synchronized void start() {
+        if (threads != null) return;
+        threads = new Thread[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            final int stage = i;
+            threads[i] = new Thread(() -> run(stage), "Vision Stage " + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Interrupts the stage threads and waits for each to finish the job it's on, so nothing is
+     * still writing into a job's buffers once this returns
+     */
+    public synchronized void stop() {
+        if (threads == null) return;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join(STOP_TIMEOUT_MS);
+                if (thread.isAlive()) Log.e(TAG, thread.getName() + " didn't stop");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        threads = null;
+    }
+
+    // Producer //
+    /**
+     * A free job to fill in, or null if every job is in flight
+     */
+    public T acquire() {
+        T job = free.poll();
+        if (job == null) unavailable++;
+        return job;
+    }
+
+    public void submit(T job) {
+        recycle(queues[0].offer(job));
+    }
+
+    // Stage threads //
+    private void run(int i) {
+        Stage<T> stage = stages[i];
+        DropOldestQueue<T> in = queues[i];
+        DropOldestQueue<T> out = i + 1 < queues.length ? queues[i + 1] : null;
+        double nanos = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            T job;
+            try {
+                job = in.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                stage.process(job);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Stage " + i + " failed", e);
+                recycle(job);
+                continue;
+            }
+            nanos += TIME_SMOOTHING * ((System.nanoTime() - start) - nanos);
+            stageNanos.set(i, (long) nanos);
+
+            if (out != null) {
+                recycle(out.offer(job));
+            } else {
+                listener.onComplete(job);
+                recycle(job);
+            }
+        }
+    }
+
+    private void recycle(T job) {
+        if (job != null) free.offer(job);
+    }
+
+    /**
+     * Frames dropped anywhere, in a queue or because no job was free
+     */
+    public long getDropped() {
+        long dropped = unavailable;
+        for (DropOldestQueue<T> queue : queues) {
+            dropped += queue.getDropped();
+        }
+        return dropped;
+    }
+
+    /**
+     * Jobs waiting in each stage's queue, nothing in flight is counted
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (DropOldestQueue<T> queue : queues) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * True when every job is back in the pool
+     */
+    public boolean isIdle() {
+        return free.remainingCapacity() == 0;
+    }
+
+    /**
+     * Moving average of a stage's time per job, in ms
+     */
+    public double getStageTime(int i) {
+        return stageNanos.get(i) / 1e6;
+    }
+
+    public int getStageCount() {
+        return stages.length;
+    }
+}
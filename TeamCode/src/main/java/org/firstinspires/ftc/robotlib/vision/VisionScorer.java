@@ -9,6 +9,21 @@ public interface VisionScorer {
 
     double getWeight();
 
+    /**
+     * Lowest score this scorer can return, so ScoringChain can tell when a contour can no longer
+     * get back under the threshold
+     */
+    double getMinScore();
+
+    /**
+     * Roughly how long scoring a contour takes when none of RingData's features are computed yet,
+     * relative to the other scorers. ScoringChain runs cheaper scorers first, RingPipelineBenchmark
+     * measures them.
+     */
+    double getCost();
+
+    String getName();
+
     void updateTelemetry();
 
     Map<String, Object> getTelemetryData();
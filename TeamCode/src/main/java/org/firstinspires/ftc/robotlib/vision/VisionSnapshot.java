@@ -0,0 +1,37 @@
+package org.firstinspires.ftc.robotlib.vision;
+
+import java.util.List;
+
+/**
+ * Immutable, already sorted results of one frame, published by the camera thread
+ */
+public final class VisionSnapshot<T> {
+    private final List<T> results;
+    private final long timestamp; // System.nanoTime() when the frame reached the pipeline
+    private final long sequence;
+
+    public VisionSnapshot(List<T> results, long timestamp, long sequence) {
+        this.results = results;
+        this.timestamp = timestamp;
+        this.sequence = sequence;
+    }
+
+    public List<T> getResults() {
+        return results;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Seconds since the frame reached the pipeline
+     */
+    public double getAge() {
+        return (System.nanoTime() - timestamp) / 1e9;
+    }
+}
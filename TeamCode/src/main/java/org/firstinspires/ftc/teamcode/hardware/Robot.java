@@ -1,5 +1,6 @@
 package org.firstinspires.ftc.teamcode.hardware;
 
+import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.qualcomm.hardware.lynx.LynxModule;
 import com.qualcomm.robotcore.hardware.HardwareMap;
@@ -24,12 +25,24 @@ import java.util.Map;
 import java.util.Queue;
 
 
+@Config
 public class Robot implements RobotBase {
+    private HardwareMap hardwareMap;
     private Telemetry telemetry;
     private TelemetryData telemetryData = new TelemetryData("Robot");
 
     private SubsystemManager subsystemManager = new SubsystemManager(this);
 
+    // Loops between telemetry and logging updates of subsystems that don't need the full loop rate //
+    public static int VISION_DIVISOR = 5;
+    public static int ARM_DIVISOR = 2;
+    public static int RING_COUNTER_DIVISOR = 2;
+
+    // Sample odometry on its own thread so a slow loop doesn't hurt the pose estimate //
+    public static boolean ODOMETRY_THREAD = false;
+    public static long ODOMETRY_PERIOD_US = 5000;
+    public static String ODOMETRY_HUB = "Expansion Hub 2"; // hub the odometry encoders are plugged into, as named in the config
+
     // Subsystems //
     public Localizer localizer;
 
@@ -45,13 +58,12 @@ public class Robot implements RobotBase {
     public Alliance alliance = Alliance.BLUE;
 
     public Robot(HardwareMap hardwareMap, Telemetry telemetry) {
+        this.hardwareMap = hardwareMap;
         this.telemetry = telemetry;
 
         LynxModuleUtil.ensureMinimumFirmwareVersion(hardwareMap);
 
-        for (LynxModule module : hardwareMap.getAll(LynxModule.class)) {
-            module.setBulkCachingMode(LynxModule.BulkCachingMode.AUTO);
-        }
+        subsystemManager.setExecutionMode(SubsystemManager.ExecutionMode.PHASED, hardwareMap.getAll(LynxModule.class));
 
         localizer = new Localizer(hardwareMap);
         ringCounter = new RingCounter(hardwareMap);
@@ -63,10 +75,10 @@ public class Robot implements RobotBase {
         drive = new Drive(hardwareMap, localizer);
 
         subsystemManager.add(localizer);
-        subsystemManager.add(vision);
-        subsystemManager.add(arm);
+        subsystemManager.add(vision, VISION_DIVISOR);
+        subsystemManager.add(arm, ARM_DIVISOR);
         subsystemManager.add(intake);
-        subsystemManager.add(ringCounter);
+        subsystemManager.add(ringCounter, RING_COUNTER_DIVISOR);
         subsystemManager.add(shooter);
         subsystemManager.add(drive);
     }
@@ -85,10 +97,17 @@ public class Robot implements RobotBase {
     @Override
     public void start() {
         subsystemManager.start();
+        if (ODOMETRY_THREAD) {
+            // The odometry thread needs fresh encoder counts. Only the odometry hub is cleared, so
+            // the other hubs are still read once per loop
+            LynxModule odometryHub = hardwareMap.get(LynxModule.class, ODOMETRY_HUB);
+            localizer.startOdometryThread(ODOMETRY_PERIOD_US, odometryHub::clearBulkCache);
+        }
     }
 
     @Override
     public void update() {
+        subsystemManager.clearBulkCache(); // localizer reads encoders before the manager runs
         localizer.update();
 
         updateShooting();
@@ -98,6 +117,7 @@ public class Robot implements RobotBase {
 
     @Override
     public void stop() {
+        localizer.stopOdometryThread();
         subsystemManager.stop();
     }
 
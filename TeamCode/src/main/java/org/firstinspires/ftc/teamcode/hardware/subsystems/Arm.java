@@ -1,7 +1,6 @@
 package org.firstinspires.ftc.teamcode.hardware.subsystems;
 
 import com.acmerobotics.dashboard.config.Config;
-import com.google.common.flogger.FluentLogger;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
@@ -10,14 +9,17 @@ import com.qualcomm.robotcore.hardware.Servo;
 import com.qualcomm.robotcore.hardware.VoltageSensor;
 
 import org.firstinspires.ftc.robotlib.hardware.AbstractSubsystem;
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 
 @Config
 public class Arm extends AbstractSubsystem {
-    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-
     public static final String CLAW_SERVO_NAME = "claw";
     public static final String ARM_MOTOR_NAME = "arm";
 
+    public static LogConfig LOG_CONFIG = new LogConfig();
+
     // Position from 0 to 1
     public static double CLAW_OPEN_POSITION = .525;
     public static double CLAW_CLOSE_POSITION = .7;
@@ -45,8 +47,17 @@ public class Arm extends AbstractSubsystem {
     private Servo clawServo;
     private double armAngle, clawPosition;
 
+    // Telemetry //
+    private final TelemetryData.DoubleEntry clawPositionEntry = telemetry.addDouble("Claw position");
+    private final TelemetryData.DoubleEntry armAngleEntry = telemetry.addDouble("Arm angle");
+
+    // Recording //
+    private DataRecorder.DoubleChannel clawPositionChannel, targetClawPositionChannel;
+    private DataRecorder.DoubleChannel armAngleChannel, targetArmAngleChannel;
+
     public Arm(HardwareMap hardwareMap) {
         super("Arm");
+        setLogConfig(LOG_CONFIG);
 
         batteryVoltageSensor = hardwareMap.voltageSensor.iterator().next();
 
@@ -97,18 +108,24 @@ public class Arm extends AbstractSubsystem {
 
     @Override
     public void updateTelemetry() {
-        telemetry.put("Claw position", clawServo.getPosition());
-        telemetry.put("Arm angle", getArmAngle());
+        clawPositionEntry.set(clawServo.getPosition());
+        armAngleEntry.set(getArmAngle());
+    }
+
+    @Override
+    public void registerChannels(DataRecorder recorder) {
+        clawPositionChannel = recorder.addDouble("Arm: claw position");
+        targetClawPositionChannel = recorder.addDouble("Arm: target claw position");
+        armAngleChannel = recorder.addDouble("Arm: arm angle");
+        targetArmAngleChannel = recorder.addDouble("Arm: target arm angle");
     }
 
     @Override
     public void updateLogging() {
-        logger.atInfo().log("Claw position: %f", clawServo.getPosition());
-        logger.atInfo().log("Arm angle: %f", getArmAngle());
-        logger.atInfo().log("Target - claw position: %f", clawPosition - clawServo.getPosition());
-        logger.atInfo().log("Target - arm angle: %f", armAngle - getArmAngle());
-        logger.atInfo().log("Claw target: %f", clawPosition);
-        logger.atInfo().log("Arm target: %f", armAngle);
+        clawPositionChannel.set(clawServo.getPosition());
+        targetClawPositionChannel.set(clawPosition);
+        armAngleChannel.set(getArmAngle());
+        targetArmAngleChannel.set(armAngle);
     }
 
     // Commands //
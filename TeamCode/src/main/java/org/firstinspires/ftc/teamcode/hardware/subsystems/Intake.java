@@ -1,18 +1,20 @@
 package org.firstinspires.ftc.teamcode.hardware.subsystems;
 
 import com.acmerobotics.dashboard.config.Config;
-import com.google.common.flogger.FluentLogger;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.firstinspires.ftc.robotlib.hardware.AbstractSubsystem;
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 
 @Config
 public class Intake extends AbstractSubsystem {
-    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-
     private static final String INTAKE_MOTOR_NAME = "intake";
 
+    public static LogConfig LOG_CONFIG = new LogConfig();
+
     public static double MOTOR_POWER_ON = 1;
 
     private DcMotorEx intakeMotor;
@@ -20,8 +22,13 @@ public class Intake extends AbstractSubsystem {
 
     private RingCounter ringCounter;
 
+    private final TelemetryData.DoubleEntry intakePowerEntry = telemetry.addDouble("Intake motor power");
+
+    private DataRecorder.DoubleChannel intakePowerChannel, targetIntakePowerChannel;
+
     public Intake(HardwareMap hardwareMap, RingCounter ringCounter) {
         super("Intake");
+        setLogConfig(LOG_CONFIG);
 
         intakeMotor = hardwareMap.get(DcMotorEx.class, INTAKE_MOTOR_NAME);
         //intakeMotor.setDirection(DcMotorSimple.Direction.REVERSE);
@@ -67,14 +74,19 @@ public class Intake extends AbstractSubsystem {
 
     @Override
     public void updateTelemetry() {
-        telemetry.put("Intake motor power", intakeMotor.getPower());
+        intakePowerEntry.set(intakeMotor.getPower());
+    }
+
+    @Override
+    public void registerChannels(DataRecorder recorder) {
+        intakePowerChannel = recorder.addDouble("Intake: intake power");
+        targetIntakePowerChannel = recorder.addDouble("Intake: target intake power");
     }
 
     @Override
     public void updateLogging() {
-        logger.atInfo().log("Intake motor power: %f", intakeMotor.getPower());
-        logger.atInfo().log("Intake target: %f", intakePower);
-        logger.atInfo().log("Target - intake power: %f", intakePower - intakeMotor.getPower());
+        intakePowerChannel.set(intakeMotor.getPower());
+        targetIntakePowerChannel.set(intakePower);
     }
 
     // Setters //
@@ -5,14 +5,16 @@ import androidx.annotation.NonNull;
 import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.acmerobotics.roadrunner.geometry.Vector2d;
-import com.google.common.flogger.FluentLogger;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.firstinspires.ftc.robotlib.hardware.Encoder;
 import org.firstinspires.ftc.robotlib.hardware.roadrunner.ThreeTrackingWheelLocalizer;
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
 import org.firstinspires.ftc.robotlib.util.MathUtil;
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 import org.firstinspires.ftc.teamcode.util.Field;
 
 import java.util.Arrays;
@@ -39,12 +41,12 @@ import static org.firstinspires.ftc.teamcode.hardware.RobotMap.SHOOTER_LOCATION_
 
 @Config
 public class Localizer extends ThreeTrackingWheelLocalizer {
-    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-
     private static final String LEFT_ENCODER_NAME = "leftEncoder",
             RIGHT_ENCODER_NAME = "rightEncoder",
             FRONT_ENCODER_NAME = "frontEncoder";
 
+    public static LogConfig LOG_CONFIG = new LogConfig();
+
     public static final double TICKS_PER_REV = 8192;
     public static final double WHEEL_RADIUS = 2; // in TODO: measure
     public static final double GEAR_RATIO = 1; // output (wheel) speed / input (encoder) speed
@@ -57,6 +59,7 @@ public class Localizer extends ThreeTrackingWheelLocalizer {
 
     public static double fudgeFactor = 1;
     public static double launchVel = 30; // ft / s
+
     private static final double g = 32.1741; // ft / s^2
 
     private Encoder leftEncoder;
@@ -71,12 +74,17 @@ public class Localizer extends ThreeTrackingWheelLocalizer {
     private double targetHeading;
     private double targetLaunchAngle;
 
+    private final TelemetryData.BooleanEntry canLaunchEntry = telemetry.addBoolean("Can launch");
+
+    private DataRecorder.DoubleChannel targetHeadingChannel, targetLaunchAngleChannel;
+
     public Localizer(HardwareMap hardwareMap) {
         super("Localizer", Arrays.asList(
                 new Pose2d(0, LATERAL_DISTANCE / 2, 0), // left
                 new Pose2d(0, -LATERAL_DISTANCE / 2, 0), // right
                 new Pose2d(FORWARD_OFFSET, 0, Math.toRadians(90)) // front
         ));
+        setLogConfig(LOG_CONFIG);
 
         leftEncoder = new Encoder(hardwareMap.get(DcMotorEx.class, LEFT_ENCODER_NAME));
         rightEncoder = new Encoder(hardwareMap.get(DcMotorEx.class, RIGHT_ENCODER_NAME));
@@ -99,13 +107,19 @@ public class Localizer extends ThreeTrackingWheelLocalizer {
 
     @Override
     public void updateTelemetry() {
-        telemetry.put("Can launch", canLaunch());
+        canLaunchEntry.set(canLaunch());
+    }
+
+    @Override
+    public void registerChannels(DataRecorder recorder) {
+        targetHeadingChannel = recorder.addDouble("Localizer: target heading");
+        targetLaunchAngleChannel = recorder.addDouble("Localizer: target launch angle (deg)");
     }
 
     @Override
     public void updateLogging() {
-        logger.atInfo().log("Target heading: %.3f", targetHeading);
-        logger.atInfo().log("Target angle: %.3f", Math.toDegrees(targetLaunchAngle));
+        targetHeadingChannel.set(targetHeading);
+        targetLaunchAngleChannel.set(Math.toDegrees(targetLaunchAngle));
     }
 
     /*
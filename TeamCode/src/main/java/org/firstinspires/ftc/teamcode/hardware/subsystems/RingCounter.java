@@ -3,7 +3,6 @@ package org.firstinspires.ftc.teamcode.hardware.subsystems;
 import android.graphics.Color;
 
 import com.acmerobotics.dashboard.config.Config;
-import com.google.common.flogger.FluentLogger;
 import com.qualcomm.robotcore.hardware.ColorSensor;
 import com.qualcomm.robotcore.hardware.DistanceSensor;
 import com.qualcomm.robotcore.hardware.HardwareMap;
@@ -12,6 +11,9 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
 import org.firstinspires.ftc.robotlib.hardware.AbstractSubsystem;
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 import org.firstinspires.ftc.robotlib.util.MathUtil;
 
 import java.util.LinkedList;
@@ -20,11 +22,11 @@ import static org.firstinspires.ftc.teamcode.util.Ring.RING_RADIUS;
 
 @Config
 public class RingCounter extends AbstractSubsystem {
-    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-
     private static final String DISTANCE_SENSOR_NAME = "distanceSensor";
     private static final String COLOR_SENSOR_NAME = "colorSensor";
 
+    public static LogConfig LOG_CONFIG = new LogConfig();
+
     public static double WALL_DIST_MIN_ERROR = .2; // in
     public static double RING_DIST_MIN_ERROR = .5;
     public static double WALL_DIST = 4;
@@ -34,6 +36,10 @@ public class RingCounter extends AbstractSubsystem {
 
     public static double TIME_FROM_FRONT_TO_CARTRIDGE = 1000; // ms
 
+    // The color sensor only tells if the cartridge is full, so it's read less often than the
+    // distance sensor, which has to catch every ring going past
+    public static int COLOR_READ_PERIOD = 2; // loops
+
     private LinkedList<ElapsedTime> rings = new LinkedList<>();
 
     private double lastDist = WALL_DIST; // Default, wall length
@@ -41,6 +47,8 @@ public class RingCounter extends AbstractSubsystem {
     private double dx;
 
     private double[] hsvValues = new double[3];
+    private final float[] hsv = new float[3];
+    private int loopsSinceColorRead = COLOR_READ_PERIOD; // read on the first loop
 
     private int numOfRingsCartridge; // An approximation
     private int totalRings;
@@ -50,8 +58,23 @@ public class RingCounter extends AbstractSubsystem {
 
     private boolean reversed = false;
 
+    // Telemetry //
+    private final TelemetryData.IntEntry cartridgeEntry = telemetry.addInt("Total Cartridge Cartridge");
+    private final TelemetryData.IntEntry totalEntry = telemetry.addInt("Total");
+    private final TelemetryData.BooleanEntry reversedEntry = telemetry.addBoolean("Reversed");
+    private final TelemetryData.DoubleEntry currDistEntry = telemetry.addDouble("Curr Dist");
+    private final TelemetryData.DoubleEntry hueEntry = telemetry.addDouble("Hue");
+    private final TelemetryData.DoubleEntry saturationEntry = telemetry.addDouble("Saturation");
+    private final TelemetryData.DoubleEntry valueEntry = telemetry.addDouble("Value");
+
+    // Recording //
+    private DataRecorder.IntChannel cartridgeChannel, totalChannel;
+    private DataRecorder.BooleanChannel reversedChannel;
+    private DataRecorder.DoubleChannel distanceChannel, hueChannel, saturationChannel, valueChannel;
+
     public RingCounter(HardwareMap hardwareMap) {
         super("Ring Counter");
+        setLogConfig(LOG_CONFIG);
         distanceSensor = hardwareMap.get(DistanceSensor.class, DISTANCE_SENSOR_NAME);
         colorSensor = hardwareMap.get(ColorSensor.class, COLOR_SENSOR_NAME);
     }
@@ -65,7 +88,8 @@ public class RingCounter extends AbstractSubsystem {
     public void readSensorValues() {
         currDist = distanceSensor.getDistance(DistanceUnit.INCH); // read sensor
 
-        float[] hsv = new float[3];
+        if (++loopsSinceColorRead < COLOR_READ_PERIOD) return;
+        loopsSinceColorRead = 0;
         Color.RGBToHSV(colorSensor.red() * 8, colorSensor.green() * 8, colorSensor.blue() * 8, hsv);
         for (int i = 0; i < hsvValues.length; i++) {
             hsvValues[i] = hsv[i];
@@ -85,20 +109,35 @@ public class RingCounter extends AbstractSubsystem {
 
     @Override
     public void updateTelemetry() {
-        telemetry.put("Total Cartridge Cartridge", numOfRingsCartridge);
-        telemetry.put("Total", totalRings);
-        telemetry.put("Reversed", reversed);
-        telemetry.put("Curr Dist", currDist);
-        telemetry.put("Color", hsvValues);
+        cartridgeEntry.set(numOfRingsCartridge);
+        totalEntry.set(totalRings);
+        reversedEntry.set(reversed);
+        currDistEntry.set(currDist);
+        hueEntry.set(hsvValues[0]);
+        saturationEntry.set(hsvValues[1]);
+        valueEntry.set(hsvValues[2]);
+    }
+
+    @Override
+    public void registerChannels(DataRecorder recorder) {
+        cartridgeChannel = recorder.addInt("Ring Counter: rings in cartridge");
+        totalChannel = recorder.addInt("Ring Counter: total rings");
+        reversedChannel = recorder.addBoolean("Ring Counter: reversed");
+        distanceChannel = recorder.addDouble("Ring Counter: sensor distance");
+        hueChannel = recorder.addDouble("Ring Counter: hue");
+        saturationChannel = recorder.addDouble("Ring Counter: saturation");
+        valueChannel = recorder.addDouble("Ring Counter: value");
     }
 
     @Override
     public void updateLogging() {
-        logger.atInfo().log("Total Cartridge Cartridge: %f", numOfRingsCartridge);
-        logger.atInfo().log("Total: %f", totalRings);
-        logger.atInfo().log("Reversed: %f", reversed);
-        logger.atInfo().log("Sensor distance: %f", currDist);
-        logger.atInfo().log("Color reading: %f", hsvValues);
+        cartridgeChannel.set(numOfRingsCartridge);
+        totalChannel.set(totalRings);
+        reversedChannel.set(reversed);
+        distanceChannel.set(currDist);
+        hueChannel.set(hsvValues[0]);
+        saturationChannel.set(hsvValues[1]);
+        valueChannel.set(hsvValues[2]);
     }
 
     private void updateFront() {
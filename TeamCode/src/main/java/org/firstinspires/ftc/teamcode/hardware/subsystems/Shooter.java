@@ -1,7 +1,6 @@
 package org.firstinspires.ftc.teamcode.hardware.subsystems;
 
 import com.acmerobotics.dashboard.config.Config;
-import com.google.common.flogger.FluentLogger;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
@@ -9,15 +8,18 @@ import com.qualcomm.robotcore.hardware.Servo;
 import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotlib.hardware.AbstractSubsystem;
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 import org.firstinspires.ftc.robotlib.util.MathUtil;
 
 @Config
 public class Shooter extends AbstractSubsystem {
-    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-
     private static final String SHOOTER_MOTOR_NAME = "shooter";
     private static final String FLAP_NAME = "flap", LAUNCH_FLAP_NAME = "launcher";
 
+    public static LogConfig LOG_CONFIG = new LogConfig();
+
     public static double SHOOTER_MIN_ERROR = 0.1;
     public static double SHOOTER_DEFAULT_POWER = 1;
 
@@ -54,8 +56,21 @@ public class Shooter extends AbstractSubsystem {
     private LaunchStatus launchStatus = LaunchStatus.RETRACTED;
     private AimingMode aimingMode = AimingMode.IDLE;
 
+    // Telemetry //
+    private final TelemetryData.ObjectEntry<AimingMode> aimingModeEntry = telemetry.addObject("Aiming mode");
+    private final TelemetryData.ObjectEntry<LaunchStatus> launchStatusEntry = telemetry.addObject("Launch status");
+    private final TelemetryData.DoubleEntry shooterPowerEntry = telemetry.addDouble("Shooter power");
+    private final TelemetryData.DoubleEntry flapAngleEntry = telemetry.addDouble("Flap angle");
+
+    // Recording //
+    private DataRecorder.IntChannel aimingModeChannel, launchStatusChannel;
+    private DataRecorder.DoubleChannel shooterPowerChannel, targetShooterPowerChannel;
+    private DataRecorder.DoubleChannel flapAngleChannel, targetFlapAngleChannel;
+    private DataRecorder.BooleanChannel readyToLaunchChannel, doneAimingChannel, extendedChannel, retractedChannel;
+
     public Shooter(HardwareMap hardwareMap, Localizer localizer) {
         super("Shooter");
+        setLogConfig(LOG_CONFIG);
         // Initialize motors and servos //
         shooterMotor = hardwareMap.get(DcMotor.class, SHOOTER_MOTOR_NAME);
         shooterMotor.setDirection(DcMotorEx.Direction.REVERSE);
@@ -102,26 +117,39 @@ public class Shooter extends AbstractSubsystem {
 
     @Override
     public void updateTelemetry() {
-        telemetry.put("Aiming mode", aimingMode);
-        telemetry.put("Launch status", launchStatus);
-        telemetry.put("Shooter power", shooterMotor.getPower());
-        telemetry.put("Flap angle", Math.toDegrees(posToAngle(flapServo.getPosition())));
+        aimingModeEntry.set(aimingMode);
+        launchStatusEntry.set(launchStatus);
+        shooterPowerEntry.set(shooterMotor.getPower());
+        flapAngleEntry.set(Math.toDegrees(posToAngle(flapServo.getPosition())));
+    }
+
+    @Override
+    public void registerChannels(DataRecorder recorder) {
+        aimingModeChannel = recorder.addInt("Shooter: aiming mode");
+        launchStatusChannel = recorder.addInt("Shooter: launch status");
+        shooterPowerChannel = recorder.addDouble("Shooter: shooter power");
+        targetShooterPowerChannel = recorder.addDouble("Shooter: target shooter power");
+        flapAngleChannel = recorder.addDouble("Shooter: flap angle (deg)");
+        targetFlapAngleChannel = recorder.addDouble("Shooter: target flap angle (deg)");
+        readyToLaunchChannel = recorder.addBoolean("Shooter: ready to launch");
+        doneAimingChannel = recorder.addBoolean("Shooter: done aiming");
+        extendedChannel = recorder.addBoolean("Shooter: extended");
+        retractedChannel = recorder.addBoolean("Shooter: retracted");
     }
 
     @Override
     public void updateLogging() {
-        logger.atInfo().log("Aiming mode: %s", aimingMode);
-        logger.atInfo().log("Launch status: %s", launchStatus);
-        logger.atInfo().log("Shooter power: %f", shooterMotor.getPower());
-        logger.atInfo().log("Flap angle: %f", Math.toDegrees(posToAngle(flapServo.getPosition())));
-
-        logger.atInfo().log("Target - shoot power: %f", shooterMotorPower - shooterMotor.getPower());
-        logger.atInfo().log("Target - flap angle: %f", Math.toDegrees(targetAngle - posToAngle(flapServo.getPosition())));
-
-        logger.atInfo().log("Ready to launch: %b", readyToLaunch());
-        logger.atInfo().log("Done aiming: %b", doneAiming());
-        logger.atInfo().log("Is extended: %b", isExtended());
-        logger.atInfo().log("Is retracted: %b", isRetracted());
+        aimingModeChannel.set(aimingMode.ordinal());
+        launchStatusChannel.set(launchStatus.ordinal());
+        shooterPowerChannel.set(shooterMotor.getPower());
+        targetShooterPowerChannel.set(shooterMotorPower);
+        flapAngleChannel.set(Math.toDegrees(posToAngle(flapServo.getPosition())));
+        targetFlapAngleChannel.set(Math.toDegrees(targetAngle));
+
+        readyToLaunchChannel.set(readyToLaunch());
+        doneAimingChannel.set(doneAiming());
+        extendedChannel.set(isExtended());
+        retractedChannel.set(isRetracted());
     }
 
 
@@ -3,36 +3,61 @@ package org.firstinspires.ftc.teamcode.hardware.subsystems;
 import android.util.Log;
 
 import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.acmerobotics.roadrunner.geometry.Vector2d;
 import com.google.common.flogger.FluentLogger;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
 import org.firstinspires.ftc.robotlib.hardware.AbstractSubsystem;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
 import org.firstinspires.ftc.robotlib.util.MathUtil;
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
+import org.firstinspires.ftc.robotlib.vision.CameraCalibration;
+import org.firstinspires.ftc.robotlib.vision.CameraModel;
+import org.firstinspires.ftc.robotlib.vision.VisionSnapshot;
 import org.firstinspires.ftc.teamcode.util.Field;
 import org.firstinspires.ftc.teamcode.util.Ring;
 import org.firstinspires.ftc.teamcode.vision.RingData;
 import org.firstinspires.ftc.teamcode.vision.RingPipeline;
+import org.firstinspires.ftc.teamcode.vision.StackClassifier;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.openftc.easyopencv.OpenCvCameraFactory;
 import org.openftc.easyopencv.OpenCvCameraRotation;
 import org.openftc.easyopencv.OpenCvInternalCamera2;
 
+import java.io.File;
 import java.util.List;
 
 import static org.firstinspires.ftc.teamcode.hardware.RobotMap.CAMERA_LOCATION;
 import static org.firstinspires.ftc.teamcode.hardware.RobotMap.CAMERA_PITCH;
+import static org.firstinspires.ftc.teamcode.hardware.RobotMap.CAMERA_YAW;
 import static org.firstinspires.ftc.teamcode.util.Ring.RING_DIAMETER;
+import static org.firstinspires.ftc.teamcode.util.Ring.RING_THICKNESS;
 
+@Config
 public class Vision extends AbstractSubsystem {
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+    public static LogConfig LOG_CONFIG = new LogConfig();
+
     public static int WIDTH = 320;
     public static int HEIGHT = 240;
     public static final double FOV_X = Math.toRadians(27.3), FOV_Y = Math.toRadians(21); // radians
     public static double FUDGE_FACTOR_Y = 1, FUDGE_FACTOR_X = 1;
 
+    // Project rings to the floor with the calibrated camera model instead of the FOV and ring size
+    // estimate. The calibration is looked up in teamwebcamcalibrations.xml by vid and pid when Vision
+    // is created, and has to be for the frame as the pipeline sees it (WIDTH x HEIGHT, after
+    // rotation). Without one, a pinhole camera with FOV_X and FOV_Y is used. The model needs the
+    // camera's pose in RobotMap, so the estimate is used until CAMERA_LOCATION has a height (tune
+    // it with RingPoseEstimateTuner).
+    public static boolean CAMERA_MODEL = true;
+    public static String CALIBRATION_VID = "", CALIBRATION_PID = "";
+
     public static double RING_AREA_MIN = 0.0001;
 
     public static int oneRingHeight = 15;
@@ -40,13 +65,42 @@ public class Vision extends AbstractSubsystem {
 
     private OpenCvInternalCamera2 camera;
     private RingPipeline ringPipeline;
-
+    private CameraModel cameraModel;
+
+    public static double MAX_FRAME_AGE = 0.25; // s, older results are considered stale
+    // s, from exposure to the frame reaching the pipeline. The pipeline only sees when a frame
+    // arrives, so this is subtracted to estimate when it was captured.
+    public static double CAMERA_LATENCY = 0.04;
+    public static boolean LATENCY_COMPENSATION = true;
+
+    // Stream the camera to the dashboard. With this off and the viewport paused nobody can see the
+    // frames, so the pipeline stops annotating them.
+    public static boolean DASHBOARD_STREAM = true;
+    private volatile int fps = 30;
+    private volatile boolean streaming = false;
+    private volatile boolean cameraOpened = false;
+    private boolean viewportPaused = false;
+
+    // Keep the last few frames in memory and write them to the log folder when the OpMode stops. A
+    // dump is about 9MB of the 25MB log quota, so only turn this on while chasing a problem.
+    public static boolean DUMP_FRAMES_ON_STOP = false;
+
+    private VisionSnapshot<RingData> ringResult;
     private List<RingData> ringData;
+    private long lastSequence = 0;
 
     private Localizer localizer;
+    private StackClassifier stackClassifier = new StackClassifier();
+
+    private final TelemetryData.IntEntry stackSizeEntry = telemetry.addInt("Number of Rings");
+    private final TelemetryData.DoubleEntry stackConfidenceEntry = telemetry.addDouble("Stack confidence");
+    private final TelemetryData.ObjectEntry<RingPipeline.Viewport> viewportEntry = telemetry.addObject("Viewport");
+    private final TelemetryData.DoubleEntry frameAgeEntry = telemetry.addDouble("Frame age (ms)");
+    private final TelemetryData.DoubleEntry ringHeightEntry = telemetry.addDouble("Height");
 
     public Vision(HardwareMap hardwareMap, Localizer localizer) {
         super("Vision");
+        setLogConfig(LOG_CONFIG);
         this.localizer = localizer;
         int cameraMonitorViewId = hardwareMap.appContext.getResources().getIdentifier("cameraMonitorViewId", "id", hardwareMap.appContext.getPackageName());
         // camera = OpenCvCameraFactory.getInstance().createWebcam(hardwareMap.get(WebcamName.class, "Webcam 1"), cameraMonitorViewId);
@@ -55,12 +109,22 @@ public class Vision extends AbstractSubsystem {
         ringPipeline = new RingPipeline();
         camera.setPipeline(ringPipeline);
 
+        CameraCalibration calibration = null;
+        if (!CALIBRATION_VID.isEmpty()) {
+            int calibrationsId = hardwareMap.appContext.getResources().getIdentifier("teamwebcamcalibrations", "xml", hardwareMap.appContext.getPackageName());
+            calibration = CameraCalibration.load(hardwareMap.appContext, calibrationsId, CALIBRATION_VID, CALIBRATION_PID, WIDTH, HEIGHT);
+            if (calibration == null) Log.e("Vision", "No calibration for " + CALIBRATION_VID + " " + CALIBRATION_PID + " at " + WIDTH + "x" + HEIGHT);
+        }
+        if (calibration == null) calibration = CameraCalibration.fromFov(WIDTH, HEIGHT, FOV_X, FOV_Y);
+        cameraModel = new CameraModel(calibration);
+
         camera.openCameraDeviceAsync(
                 () -> {
                     camera.setViewportRenderingPolicy(OpenCvInternalCamera2.ViewportRenderingPolicy.OPTIMIZE_VIEW);
                     camera.setViewportRenderer(OpenCvInternalCamera2.ViewportRenderer.GPU_ACCELERATED);
                     camera.startStreaming(WIDTH, HEIGHT, OpenCvCameraRotation.SIDEWAYS_LEFT);
                     setFPS(30);
+                    cameraOpened = true;
                 }
         );
     }
@@ -70,20 +134,35 @@ public class Vision extends AbstractSubsystem {
     }
 
     @Override
-    public void update() {
+    public void initUpdate() {
+        analyze();
+        updateStackClassifier();
+        updateHeadless();
+        ringPipeline.setRecordingFrames(DUMP_FRAMES_ON_STOP);
+    }
 
+    @Override
+    public void update() {
+        analyze();
+        updateStackClassifier();
+        updateHeadless();
+        ringPipeline.setRecordingFrames(DUMP_FRAMES_ON_STOP);
     }
 
     @Override
     public void stop() {
         camera.stopStreaming();
+        ringPipeline.close();
+        if (DUMP_FRAMES_ON_STOP) dumpFrames();
     }
 
     @Override
     public void updateTelemetry() {
         ringPipeline.updateTelemetry();
-        if (ringData != null) telemetry.put("Number of Rings", getCenterStackSize());
-        telemetry.put("Viewport", getViewport());
+        stackSizeEntry.set(stackClassifier.getStackSize());
+        stackConfidenceEntry.set(stackClassifier.getConfidence());
+        viewportEntry.set(getViewport());
+        if (ringResult != null) frameAgeEntry.set(ringResult.getAge() * 1000);
         telemetry.putAll(ringPipeline.getTelemetryData());
     }
 
@@ -92,14 +171,31 @@ public class Vision extends AbstractSubsystem {
         ringPipeline.updateLogging();
     }
 
-    public void analyze() {
-        ringData = ringPipeline.getRingData();
+    /*
+     * Takes the latest snapshot from the camera thread, already sorted largest ring first. Only
+     * update() and initUpdate() call this, so every getter sees the same frame for the whole loop.
+     */
+    private void analyze() {
+        if (ringResult != null) lastSequence = ringResult.getSequence();
+        ringResult = ringPipeline.getLatestResult();
+        ringData = ringResult.getResults();
+    }
+
+    /*
+     * True if this loop's update() picked up a frame that hadn't been analyzed yet
+     */
+    public boolean isNewFrame() {
+        return ringResult != null && ringResult.getSequence() != lastSequence;
+    }
+
+    public boolean isStale() {
+        return ringResult == null || ringResult.getAge() > MAX_FRAME_AGE;
     }
     public void scan() {
-        analyze();
+        if (ringData == null) return;
         for (RingData r : ringData) {
-            Ring ring = new Ring(getRingPosition(r));
-            Field.ringProvider.add(ring);
+            Vector2d position = getRingPosition(r);
+            if (position != null) Field.ringProvider.add(new Ring(position));
         }
     }
 
@@ -107,6 +203,10 @@ public class Vision extends AbstractSubsystem {
      * Frame of reference: camera is center and axis same as cameras
      */
     public Vector3D getRingCameraLocalPosition(RingData ring) {
+        if (usesCameraModel()) {
+            Vector3D local = getRingLocalPosition(ring);
+            return local == null ? null : cameraModel.toCameraFrame(local);
+        }
         double ratio = RING_DIAMETER / ring.getNormalizedBoxSize().width;
         double x = FUDGE_FACTOR_X * ratio / Math.tan(FOV_X / 2.0);
         double y = FUDGE_FACTOR_Y * ratio * ring.getNormalizedCentroid().x;
@@ -115,29 +215,89 @@ public class Vision extends AbstractSubsystem {
     }
 
     /*
-     * Frame of reference: robot at center, axis is same as robots
+     * Frame of reference: robot at center, axis is same as robots. With the camera model, null if
+     * the ring's centroid can't be on the floor (at or above the horizon).
      */
     public Vector3D getRingLocalPosition(RingData ring) {
+        if (usesCameraModel()) {
+            Point pixel = getRingPixel(ring);
+            cameraModel.setExtrinsics(CAMERA_LOCATION, CAMERA_PITCH, CAMERA_YAW);
+            return cameraModel.projectToPlane(pixel.x, pixel.y, RING_THICKNESS / 2);
+        }
         Vector3D cam = getRingCameraLocalPosition(ring);
         Vector3D rotCam = MathUtil.rotateY(cam, CAMERA_PITCH);
         return CAMERA_LOCATION.add(rotCam);
     }
 
+    /*
+     * Where the ring's centroid is in the full frame, the pipeline only sees the cropped part
+     */
+    public Point getRingPixel(RingData ring) {
+        Point centroid = ring.getCentroid();
+        Rect croppedRect = RingPipeline.getCroppedRect();
+        return new Point(centroid.x + croppedRect.x, centroid.y + croppedRect.y);
+    }
+
+    /*
+     * A camera at floor level can't see rings on the floor, which is what an untuned RobotMap says
+     */
+    public boolean usesCameraModel() {
+        return CAMERA_MODEL && CAMERA_LOCATION.getZ() > RING_THICKNESS / 2;
+    }
+
+    public CameraModel getCameraModel() {
+        return cameraModel;
+    }
+
     /*
      * Frame of reference: global
      */
     public Vector2d getRingPosition(RingData ring) {
-        Pose2d pose = localizer.getPoseEstimate();
+        return getRingPosition(ring, getExposurePose());
+    }
+    public Vector2d getRingPosition(RingData ring, Pose2d pose) {
         Vector3D ringLocal3D = getRingLocalPosition(ring);
+        if (ringLocal3D == null) return null;
         Vector2d ringLocal2d = MathUtil.vector3DToVector2d(ringLocal3D);
         return MathUtil.localToGlobal(ringLocal2d, pose);
     }
 
+    /*
+     * Where the robot was when the analyzed frame was captured, so rings aren't smeared sideways
+     * while the robot turns
+     */
+    public Pose2d getExposurePose() {
+        if (!LATENCY_COMPENSATION || ringResult == null) return localizer.getPoseEstimate();
+        return localizer.getPoseAt(getExposureTimestamp());
+    }
+    public long getExposureTimestamp() {
+        return ringResult.getTimestamp() - (long) (CAMERA_LATENCY * 1e9);
+    }
+
     public void resumeViewport() {
         camera.resumeViewport();
+        viewportPaused = false;
+        updateHeadless();
     }
     public void pauseViewport() {
         camera.pauseViewport();
+        viewportPaused = true;
+        updateHeadless();
+    }
+
+    /*
+     * Follows DASHBOARD_STREAM, which can change from the dashboard at any time
+     */
+    private void updateHeadless() {
+        if (cameraOpened && DASHBOARD_STREAM != streaming) {
+            if (DASHBOARD_STREAM) {
+                FtcDashboard.getInstance().startCameraStream(camera, fps);
+            } else {
+                FtcDashboard.getInstance().stopCameraStream();
+            }
+            streaming = DASHBOARD_STREAM;
+        }
+        ringPipeline.setHeadless(viewportPaused && !streaming);
     }
 
     // Getters and Setters //
@@ -154,26 +314,36 @@ public class Vision extends AbstractSubsystem {
     }
 
     public void setFPS(int fps) {
+        this.fps = fps;
         FtcDashboard.getInstance().stopCameraStream();
         camera.setSensorFps(fps);
-        FtcDashboard.getInstance().startCameraStream(camera, fps);
+        if (DASHBOARD_STREAM) FtcDashboard.getInstance().startCameraStream(camera, fps);
+        streaming = DASHBOARD_STREAM;
+    }
+
+    /*
+     * Votes with every new frame, called each loop so the window is full by the time it's needed
+     */
+    private void updateStackClassifier() {
+        stackClassifier.add(ringResult);
+        if (!ringData.isEmpty()) ringHeightEntry.set(ringData.get(0).getBoxSize().height);
     }
 
+    /*
+     * Stack size voted over the last few frames, check isCenterStackSizeReady() first to know if
+     * enough frames agree
+     */
     public int getCenterStackSize() {
-        analyze();
-        if (ringData.size() > 0) {
-            RingData centerRing = ringData.get(0);
-            if (centerRing.getNormalizedContourArea() >= RING_AREA_MIN) {
-                double height = centerRing.getBoxSize().height;
-                telemetry.put("Height", height);
-                if (height > oneRingHeight) {
-                    return 4;
-                } else if (height > zeroRingHeight) {
-                    return 1;
-                }
-            }
-        }
-        return 0;
+        return stackClassifier.getStackSize();
+    }
+    public double getCenterStackConfidence() {
+        return stackClassifier.getConfidence();
+    }
+    public boolean isCenterStackSizeReady() {
+        return stackClassifier.isReady();
+    }
+    public void resetCenterStackSize() {
+        stackClassifier.reset();
     }
 
     public RingPipeline.Viewport getViewport() {
@@ -192,18 +362,26 @@ public class Vision extends AbstractSubsystem {
 
     // Save image //
     public void saveOutput(String filename) {
-        ringPipeline.saveLatestMat(filename);
+        ringPipeline.saveLatestMat(getImageFile(filename));
     }
+    /*
+     * Saves the next raw camera frame, pull the samples folder off the phone to replay it with
+     * FrameReplay
+     */
     public void saveOutput() {
-        RingPipeline.Viewport lastViewport = getViewport();
-        setViewport(RingPipeline.Viewport.RAW_IMAGE); // test
-//        try {
-//            Thread.sleep(100);
-//        } catch (InterruptedException e) {
-//            e.printStackTrace();
-//        }
         String filename = "/samples/" + "IMG_" + System.currentTimeMillis();
-        saveOutput(filename);
-        setViewport(lastViewport);
+        ringPipeline.captureRawFrame(getImageFile(filename));
+    }
+    /*
+     * Same place EasyOpenCV's saveMatToDisk() writes to
+     */
+    private static File getImageFile(String filename) {
+        return new File(AppUtil.ROOT_FOLDER + "/EasyOpenCV/" + filename + ".png");
+    }
+    /*
+     * Writes the last second or so of raw frames and what was detected in them, in the background
+     */
+    public void dumpFrames() {
+        ringPipeline.dumpFrameHistory("Frames_" + System.currentTimeMillis());
     }
 }
@@ -2,10 +2,8 @@ package org.firstinspires.ftc.teamcode.hardware.subsystems.drive;
 
 import androidx.annotation.NonNull;
 
-import com.acmerobotics.dashboard.FtcDashboard;
 import com.acmerobotics.dashboard.canvas.Canvas;
 import com.acmerobotics.dashboard.config.Config;
-import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
 import com.acmerobotics.roadrunner.control.PIDCoefficients;
 import com.acmerobotics.roadrunner.control.PIDFController;
 import com.acmerobotics.roadrunner.drive.DriveSignal;
@@ -25,7 +23,6 @@ import com.acmerobotics.roadrunner.trajectory.constraints.ProfileAccelerationCon
 import com.acmerobotics.roadrunner.trajectory.constraints.TrajectoryAccelerationConstraint;
 import com.acmerobotics.roadrunner.trajectory.constraints.TrajectoryVelocityConstraint;
 import com.acmerobotics.roadrunner.util.NanoClock;
-import com.google.common.flogger.FluentLogger;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
@@ -36,6 +33,9 @@ import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigu
 
 import org.firstinspires.ftc.robotlib.hardware.roadrunner.MecanumDrive;
 import org.firstinspires.ftc.robotlib.util.DashboardUtil;
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 import org.firstinspires.ftc.teamcode.hardware.subsystems.Localizer;
 import org.firstinspires.ftc.teamcode.util.Field;
 import org.firstinspires.ftc.teamcode.util.Ring;
@@ -59,13 +59,13 @@ import static org.firstinspires.ftc.teamcode.hardware.subsystems.drive.DriveCons
 
 @Config
 public class Drive extends MecanumDrive {
-    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-
     private static final String LEFT_FRONT_NAME = "leftFront";
     private static final String LEFT_REAR_NAME = "leftRear";
     private static final String RIGHT_REAR_NAME = "rightRear";
     private static final String RIGHT_FRONT_NAME = "rightFront";
 
+    public static LogConfig LOG_CONFIG = new LogConfig();
+
     public static PIDCoefficients TRANSLATIONAL_PID = new PIDCoefficients(0, 0, 0);
     public static PIDCoefficients HEADING_PID = new PIDCoefficients(0, 0, 0);
 
@@ -106,6 +106,24 @@ public class Drive extends MecanumDrive {
 
     private Localizer localizer;
 
+    // Telemetry //
+    private final TelemetryData.ObjectEntry<Mode> modeEntry = telemetry.addObject("mode");
+    private final TelemetryData.DoubleEntry xEntry = telemetry.addDouble("x");
+    private final TelemetryData.DoubleEntry yEntry = telemetry.addDouble("y");
+    private final TelemetryData.DoubleEntry headingEntry = telemetry.addDouble("heading (deg)");
+    // Same order as motors
+    private final TelemetryData.DoubleEntry[] wheelVelocityEntries = {
+            telemetry.addDouble("left front velocity (in/s)"),
+            telemetry.addDouble("left rear velocity (in/s)"),
+            telemetry.addDouble("right rear velocity (in/s)"),
+            telemetry.addDouble("right front velocity (in/s)")
+    };
+
+    // Recording //
+    private DataRecorder.IntChannel modeChannel;
+    private DataRecorder.DoubleChannel xChannel, yChannel, headingChannel;
+    private DataRecorder.DoubleChannel xErrorChannel, yErrorChannel, headingErrorChannel;
+
     public static double LAUNCH_X = Field.LAUNCH_LINE_X - .75 * Field.TILE_WIDTH;
     public static double BEHIND_LINE_ERROR = .5; // inches
 
@@ -114,6 +132,7 @@ public class Drive extends MecanumDrive {
 
     public Drive(HardwareMap hardwareMap, Localizer localizer) {
         super("Drive", DriveConstants.kV, DriveConstants.kA, DriveConstants.kStatic, TRACK_WIDTH, TRACK_WIDTH, LATERAL_MULTIPLIER);
+        setLogConfig(LOG_CONFIG);
 
         clock = NanoClock.system();
 
@@ -232,16 +251,20 @@ public class Drive extends MecanumDrive {
     public void updateTelemetry() {
         Pose2d currentPose = getPoseEstimate();
 
-        telemetry.put("mode", mode);
+        modeEntry.set(mode);
 
-        telemetry.put("Motor velocities: ", getWheelVelocities().toString());
+        for (int i = 0; i < wheelVelocityEntries.length; i++) {
+            wheelVelocityEntries[i].set(encoderTicksToInches(motors.get(i).getVelocity()));
+        }
 
-        telemetry.put("x", currentPose.getX());
-        telemetry.put("y", currentPose.getY());
-        telemetry.put("heading (deg)", Math.toDegrees(currentPose.getHeading()));
+        xEntry.set(currentPose.getX());
+        yEntry.set(currentPose.getY());
+        headingEntry.set(Math.toDegrees(currentPose.getHeading()));
+    }
 
-        TelemetryPacket packet = new TelemetryPacket();
-        Canvas fieldOverlay = packet.fieldOverlay();
+    @Override
+    public void updateFieldOverlay(Canvas fieldOverlay) {
+        Pose2d currentPose = getPoseEstimate();
 
         switch (mode) {
             case IDLE:
@@ -278,8 +301,17 @@ public class Drive extends MecanumDrive {
 
         Field.ringProvider.draw(fieldOverlay);
         Field.wobbleGoalProvider.draw(fieldOverlay, localizer.getAlliance());
+    }
 
-        FtcDashboard.getInstance().sendTelemetryPacket(packet);
+    @Override
+    public void registerChannels(DataRecorder recorder) {
+        modeChannel = recorder.addInt("Drive: mode");
+        xChannel = recorder.addDouble("Drive: x");
+        yChannel = recorder.addDouble("Drive: y");
+        headingChannel = recorder.addDouble("Drive: heading");
+        xErrorChannel = recorder.addDouble("Drive: x error");
+        yErrorChannel = recorder.addDouble("Drive: y error");
+        headingErrorChannel = recorder.addDouble("Drive: heading error");
     }
 
     @Override
@@ -287,9 +319,13 @@ public class Drive extends MecanumDrive {
         Pose2d currentPose = getPoseEstimate();
         Pose2d lastError = getLastError();
 
-        logger.atInfo().log("Mode: %s", mode);
-        logger.atInfo().log("Pose: %s", currentPose);
-        logger.atInfo().log("Pose Error: %s", lastError);
+        modeChannel.set(mode.ordinal());
+        xChannel.set(currentPose.getX());
+        yChannel.set(currentPose.getY());
+        headingChannel.set(currentPose.getHeading());
+        xErrorChannel.set(lastError.getX());
+        yErrorChannel.set(lastError.getY());
+        headingErrorChannel.set(lastError.getHeading());
     }
 
     /*
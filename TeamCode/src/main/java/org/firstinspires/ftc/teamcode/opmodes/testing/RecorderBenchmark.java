@@ -0,0 +1,67 @@
+package org.firstinspires.ftc.teamcode.opmodes.testing;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.google.common.flogger.FluentLogger;
+import com.qualcomm.robotcore.eventloop.opmode.Disabled;
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LoggingUtil;
+
+import java.io.File;
+
+/*
+ * Compares the per loop cost of logging a pose with flogger against writing it to a DataRecorder
+ */
+@TeleOp
+@Disabled
+public class RecorderBenchmark extends OpMode {
+    private static FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    private static final int ITERATIONS = 1000;
+
+    private Pose2d testPose = new Pose2d(15,-20, Math.toRadians(45));
+
+    private DataRecorder recorder = new DataRecorder();
+    private DataRecorder.DoubleChannel xChannel = recorder.addDouble("x");
+    private DataRecorder.DoubleChannel yChannel = recorder.addDouble("y");
+    private DataRecorder.DoubleChannel headingChannel = recorder.addDouble("heading");
+    private File file;
+
+    private double floggerTime, recorderTime;
+
+    @Override
+    public void init() {
+        file = LoggingUtil.getLogFile("RecorderBenchmark.bin");
+        recorder.start(file);
+    }
+
+    @Override
+    public void loop() {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            logger.atInfo().log("Pose: %s", testPose);
+        }
+        floggerTime = (System.nanoTime() - start) / 1e3 / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            xChannel.set(testPose.getX());
+            yChannel.set(testPose.getY());
+            headingChannel.set(testPose.getHeading());
+            recorder.endRow();
+        }
+        recorderTime = (System.nanoTime() - start) / 1e3 / ITERATIONS;
+
+        telemetry.addData("Flogger (us/row)", floggerTime);
+        telemetry.addData("Recorder (us/row)", recorderTime);
+        telemetry.addData("Dropped rows", recorder.getDroppedRows());
+    }
+
+    @Override
+    public void stop() {
+        recorder.stop();
+        LoggingUtil.closeLogFile(file);
+    }
+}
@@ -25,6 +25,7 @@ public class RingFollowerTest extends OpMode {
 
     @Override
     public void loop() {
+        robot.update();
         robot.vision.scan();
 
         goToRing();
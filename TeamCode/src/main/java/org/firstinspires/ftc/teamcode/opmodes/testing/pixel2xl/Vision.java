@@ -7,6 +7,7 @@ import com.qualcomm.robotcore.eventloop.opmode.Disabled;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
 import org.firstinspires.ftc.robotlib.hardware.AbstractSubsystem;
 import org.firstinspires.ftc.teamcode.hardware.subsystems.Localizer;
 import org.firstinspires.ftc.teamcode.vision.RingPipeline;
@@ -15,6 +16,7 @@ import org.openftc.easyopencv.OpenCvCameraFactory;
 import org.openftc.easyopencv.OpenCvCameraRotation;
 import org.openftc.easyopencv.OpenCvInternalCamera;
 
+import java.io.File;
 import java.util.List;
 
 import static org.firstinspires.ftc.teamcode.util.Ring.RING_DIAMETER;
@@ -74,6 +76,7 @@ public class Vision extends AbstractSubsystem {
     public void updateTelemetry() {
         if (ringData != null) telemetry.put("Number of Rings", ringData.size());
         telemetry.put("Viewport", getViewport());
+        ringPipeline.updateTelemetry();
         telemetry.putAll(ringPipeline.getTelemetryData());
     }
 
@@ -147,7 +150,7 @@ public class Vision extends AbstractSubsystem {
 
     // Save image //
     public void saveOutput(String filename) {
-        ringPipeline.saveLatestMat(filename);
+        ringPipeline.saveLatestMat(new File(AppUtil.ROOT_FOLDER + "/EasyOpenCV/" + filename + ".png"));
     }
     public void saveOutput() {
         RingPipeline.Viewport lastViewport = getViewport();
@@ -8,46 +8,48 @@ import com.qualcomm.robotcore.eventloop.opmode.Disabled;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 
-import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
-import org.apache.commons.math3.optim.MaxEval;
-import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
-import org.apache.commons.math3.optim.univariate.BrentOptimizer;
-import org.apache.commons.math3.optim.univariate.SearchInterval;
-import org.apache.commons.math3.optim.univariate.UnivariateObjectiveFunction;
-import org.apache.commons.math3.optim.univariate.UnivariateOptimizer;
-import org.apache.commons.math3.optim.univariate.UnivariatePointValuePair;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotlib.hardware.gamepad.RadicalGamepad;
-import org.firstinspires.ftc.robotlib.util.MathUtil;
+import org.firstinspires.ftc.robotlib.vision.CameraExtrinsicsFit;
+import org.firstinspires.ftc.teamcode.hardware.RobotMap;
 import org.firstinspires.ftc.teamcode.hardware.subsystems.Vision;
 import org.firstinspires.ftc.teamcode.vision.RingData;
+import org.opencv.core.Point;
 
-import java.util.ArrayList;
+import java.util.List;
 
-import static org.firstinspires.ftc.robotlib.util.MathUtil.squareError;
+import static org.firstinspires.ftc.teamcode.hardware.RobotMap.CAMERA_LOCATION;
+import static org.firstinspires.ftc.teamcode.hardware.RobotMap.CAMERA_PITCH;
+import static org.firstinspires.ftc.teamcode.hardware.RobotMap.CAMERA_YAW;
+import static org.firstinspires.ftc.teamcode.util.Ring.RING_THICKNESS;
 
+/*
+ * Tunes the camera's pitch, yaw and height in RobotMap with the robot standing still. Put a ring
+ * on the floor, set currentVector2d to where it is relative to the robot's center and press A,
+ * for a few spots spread across the image, then B to fit. The fit is applied straight away, so
+ * Predicted Position uses it; copy the values into RobotMap to keep them. X clears the samples.
+ */
 @Config
 @TeleOp(name="Ring Pose Estimate Tuner No Drive", group="Tuner")
 @Disabled
 public class RingPoseEstimateTunerNoDrive extends OpMode {
-    public static double fudgeFactorX = 1, fudgeFactorY = 1;
     public static Vector2d currentVector2d = new Vector2d(0,0);
 
-    private final ArrayList<Vector2d> predictedVector2ds = new ArrayList<>();
-    private final ArrayList<Vector2d> actualVector2ds = new ArrayList<>();
-
     public Telemetry telemetry;
 
     private Vision vision;
     private RadicalGamepad gamepad;
+    private CameraExtrinsicsFit fit;
+    private CameraExtrinsicsFit.Result result;
 
     @Override
     public void init() {
         vision = new Vision(hardwareMap);
         gamepad = new RadicalGamepad(gamepad1);
+        fit = new CameraExtrinsicsFit(vision.getCameraModel().getCalibration());
 
-        telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
+        telemetry = new MultipleTelemetry(super.telemetry, FtcDashboard.getInstance().getTelemetry());
     }
 
     @Override
@@ -59,72 +61,33 @@ public class RingPoseEstimateTunerNoDrive extends OpMode {
     public void loop() {
         gamepad.update();
 
-        vision.analyze();
-
-        RingData ring = vision.getRingData().get(0);
-        Vector3D predVector3D = vision.getRingCameraLocalPosition(ring);
-        Vector2d predVector = MathUtil.vector3DToVector2d(predVector3D);
-
-        if (gamepad.a) {
-            predictedVector2ds.add(predVector);
-            actualVector2ds.add(currentVector2d);
-        } else if (gamepad.b) {
-            fudgeFactorX = findLambdaX();
-            fudgeFactorY = findLambdaY();
-        }
-
         vision.update();
 
-        telemetry.addData("Predicted Vector", predVector3D.toString());
-        telemetry.addData("Actual Vector", currentVector2d.toString());
-        telemetry.addData("Fudge Factor X", fudgeFactorX);
-        telemetry.addData("Fudge Factor Y", fudgeFactorY);
-        telemetry.update();
-    }
-
-    UnivariateOptimizer optimizer = new BrentOptimizer(1e-10, 1e-14);
-
-    UnivariateFunction fX = new ErrorFunctionX();
-    public double findLambdaX() {
-        UnivariatePointValuePair val = optimizer.optimize(new MaxEval(200),
-                new UnivariateObjectiveFunction(fX),
-                GoalType.MINIMIZE,
-                new SearchInterval(0.01, 2));
-
-        return val.getValue();
-    }
-
-    UnivariateFunction fY = new ErrorFunctionY();
-    public double findLambdaY() {
-        UnivariatePointValuePair val = optimizer.optimize(new MaxEval(200),
-                new UnivariateObjectiveFunction(fY),
-                GoalType.MINIMIZE,
-                new SearchInterval(0.01, 2));
-
-        return val.getValue();
-    }
-
-    private class ErrorFunctionX implements UnivariateFunction {
-        @Override
-        public double value(double x) {
-            double totalError = 0.0;
-            for (int i = 0; i < predictedVector2ds.size(); i++) {
-                double predicted = x * predictedVector2ds.get(i).getX();
-                totalError += squareError(predicted, actualVector2ds.get(i).getX());
-            }
-            return totalError;
+        Vector3D actual = new Vector3D(currentVector2d.getX(), currentVector2d.getY(), RING_THICKNESS / 2);
+
+        List<RingData> rings = vision.getRingData();
+        RingData ring = rings == null || rings.isEmpty() ? null : rings.get(0);
+
+        if (gamepad.a && ring != null) {
+            Point pixel = vision.getRingPixel(ring);
+            fit.add(pixel.x, pixel.y, actual);
+        } else if (gamepad.b && fit.size() >= 2) {
+            result = fit.fit(CAMERA_LOCATION, CAMERA_PITCH, CAMERA_YAW, CAMERA_LOCATION.getZ());
+            RobotMap.CAMERA_PITCH = result.pitch;
+            RobotMap.CAMERA_YAW = result.yaw;
+            RobotMap.CAMERA_LOCATION = new Vector3D(CAMERA_LOCATION.getX(), CAMERA_LOCATION.getY(), result.height);
+        } else if (gamepad.x) {
+            fit.clear();
         }
-    }
 
-    private class ErrorFunctionY implements UnivariateFunction {
-        @Override
-        public double value(double y) {
-            double totalError = 0.0;
-            for (int i = 0; i < predictedVector2ds.size(); i++) {
-                double predicted = y * predictedVector2ds.get(i).getY();
-                totalError += squareError(predicted, actualVector2ds.get(i).getY());
-            }
-            return totalError;
-        }
+        Vector3D predicted = ring == null ? null : vision.getRingLocalPosition(ring);
+        telemetry.addData("Predicted Position", predicted == null ? "none" : predicted.toString());
+        telemetry.addData("Actual Position", actual.toString());
+        telemetry.addData("Samples", fit.size());
+        telemetry.addData("Camera Pitch (deg)", Math.toDegrees(CAMERA_PITCH));
+        telemetry.addData("Camera Yaw (deg)", Math.toDegrees(CAMERA_YAW));
+        telemetry.addData("Camera Height (in)", CAMERA_LOCATION.getZ());
+        if (result != null) telemetry.addData("Fit Error (px)", result.rmsError);
+        telemetry.update();
     }
 }
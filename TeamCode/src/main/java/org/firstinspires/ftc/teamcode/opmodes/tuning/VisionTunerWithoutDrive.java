@@ -34,7 +34,6 @@ public class VisionTunerWithoutDrive extends OpMode {
     @Override
     public void loop() {
         gamepad.update();
-        vision.analyze();
 
         if (gamepad.dpad_down) {
             vision.setViewport(Viewport.RAW_MASK);
@@ -6,6 +6,7 @@ import com.acmerobotics.roadrunner.geometry.Vector2d;
 public class Ring {
     public static final double RING_RADIUS = 5.0; // inches
     public static final double RING_DIAMETER = 2 * RING_RADIUS; // inches
+    public static final double RING_THICKNESS = 0.75; // inches
 
     private final Vector2d position;
 
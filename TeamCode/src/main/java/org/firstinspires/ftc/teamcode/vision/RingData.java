@@ -3,7 +3,6 @@ package org.firstinspires.ftc.teamcode.vision;
 import org.firstinspires.ftc.teamcode.util.VisionUtil;
 import org.opencv.core.MatOfInt;
 import org.opencv.core.MatOfPoint;
-import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.Point;
 import org.opencv.core.Rect;
 import org.opencv.core.Size;
@@ -11,90 +10,119 @@ import org.opencv.imgproc.Imgproc;
 import org.opencv.imgproc.Moments;
 
 import static org.firstinspires.ftc.teamcode.util.VisionUtil.normalizePoint;
-import static org.firstinspires.ftc.teamcode.util.VisionUtil.pickPoints;
 import static org.firstinspires.ftc.teamcode.util.VisionUtil.rectCenter;
 
+/**
+ * Features of a contour, each computed the first time it is asked for and then cached, so a
+ * contour rejected by a cheap feature never pays for the expensive ones (moments, convex hull).
+ * Getters are synchronized since results are read from other threads after they're published.
+ */
 public class RingData {
     private final MatOfPoint contour;
-    private final double contourArea;
-    private final Point centroid;
+    private double contourArea = Double.NaN;
+    private Point centroid;
 
-    private final double convexHullArea;
+    private double convexHullArea = Double.NaN;
 
-    private final Rect boundingRect;
-    private final double boxArea;
-    private final Point boxCenter;
-    private final Size boxSize;
+    private Rect boundingRect;
+    private Point boxCenter;
+    private Size boxSize;
 
     public RingData(MatOfPoint contour) {
         this.contour = contour;
-        contourArea = Imgproc.contourArea(contour);
-
-        Moments p = Imgproc.moments(contour);
-        centroid = new Point(p.get_m10() / p.get_m00(),
-                             p.get_m01() / p.get_m00());
-
-        MatOfInt hullIndices = new MatOfInt();
-        Imgproc.convexHull(contour, hullIndices);
-        MatOfPoint2f hull = pickPoints(contour, hullIndices);
-        convexHullArea = Imgproc.contourArea(hull);
-
-        boundingRect = Imgproc.boundingRect(contour);
-        boxArea = boundingRect.area();
-        boxCenter = rectCenter(boundingRect);
-        boxSize = boundingRect.size();
     }
 
     public MatOfPoint getContour() {
         return contour;
     }
 
-    public double getContourArea() {
+    public synchronized double getContourArea() {
+        if (Double.isNaN(contourArea)) {
+            contourArea = Imgproc.contourArea(contour);
+        }
         return contourArea;
     }
     public double getNormalizedContourArea() {
-        return VisionUtil.normalizeArea(contourArea);
+        return VisionUtil.normalizeArea(getContourArea());
     }
 
-    public Point getCentroid() {
+    public synchronized Point getCentroid() {
+        if (centroid == null) {
+            Moments p = Imgproc.moments(contour);
+            centroid = new Point(p.get_m10() / p.get_m00(),
+                                 p.get_m01() / p.get_m00());
+        }
         return centroid;
     }
     public Point getNormalizedCentroid() {
-        return VisionUtil.normalizePoint(centroid);
+        return VisionUtil.normalizePoint(getCentroid());
     }
 
-    public double getConvexHullArea() {
+    public synchronized double getConvexHullArea() {
+        if (Double.isNaN(convexHullArea)) {
+            convexHullArea = convexHullArea(contour);
+        }
         return convexHullArea;
     }
     public double getNormalizedConvexHullArea() {
-        return VisionUtil.normalizeArea(convexHullArea);
+        return VisionUtil.normalizeArea(getConvexHullArea());
     }
 
-    public Rect getBoundingRect() {
+    public synchronized Rect getBoundingRect() {
+        if (boundingRect == null) {
+            boundingRect = Imgproc.boundingRect(contour);
+        }
         return boundingRect;
     }
     public Rect getNormalizedBoundingRect() {
-        return VisionUtil.normalizeRect(boundingRect);
+        return VisionUtil.normalizeRect(getBoundingRect());
     }
 
     public double getBoxArea() {
-        return boxArea;
+        return getBoundingRect().area();
     }
     public double getNormalizedBoxArea() {
-        return VisionUtil.normalizeArea(boxArea);
+        return VisionUtil.normalizeArea(getBoxArea());
     }
 
-    public Point getBoxCenter() {
+    public synchronized Point getBoxCenter() {
+        if (boxCenter == null) {
+            boxCenter = rectCenter(getBoundingRect());
+        }
         return boxCenter;
     }
     public Point getNormalizedBoxCenter() {
-        return normalizePoint(boxCenter);
+        return normalizePoint(getBoxCenter());
     }
 
-    public Size getBoxSize() {
+    public synchronized Size getBoxSize() {
+        if (boxSize == null) {
+            boxSize = getBoundingRect().size();
+        }
         return boxSize;
     }
     public Size getNormalizedBoxSize() {
-        return VisionUtil.normalizeSize(boxSize);
+        return VisionUtil.normalizeSize(getBoxSize());
+    }
+
+    /*
+     * Shoelace area of the hull points, read straight from the contour's data instead of picking
+     * them into a new MatOfPoint2f
+     */
+    private static double convexHullArea(MatOfPoint contour) {
+        MatOfInt hullIndices = new MatOfInt();
+        Imgproc.convexHull(contour, hullIndices);
+        int[] indices = hullIndices.toArray();
+        hullIndices.release();
+
+        int[] points = new int[(int) contour.total() * 2];
+        contour.get(0, 0, points);
+
+        long twiceArea = 0;
+        for (int i = 0; i < indices.length; i++) {
+            int a = indices[i] * 2, b = indices[(i + 1) % indices.length] * 2;
+            twiceArea += (long) points[a] * points[b + 1] - (long) points[b] * points[a + 1];
+        }
+        return Math.abs(twiceArea) / 2.0;
     }
 }
@@ -3,24 +3,34 @@ package org.firstinspires.ftc.teamcode.vision;
 import com.acmerobotics.dashboard.config.Config;
 
 import org.firstinspires.ftc.robotlib.util.TelemetryData;
+import org.firstinspires.ftc.robotlib.vision.FrameHistory;
+import org.firstinspires.ftc.robotlib.vision.FrameSaver;
+import org.firstinspires.ftc.robotlib.vision.MatOperator;
+import org.firstinspires.ftc.robotlib.vision.ResultPublisher;
+import org.firstinspires.ftc.robotlib.vision.ScoringChain;
 import org.firstinspires.ftc.robotlib.vision.VisionScorer;
+import org.firstinspires.ftc.robotlib.vision.VisionSnapshot;
 import org.firstinspires.ftc.teamcode.hardware.subsystems.Vision;
 import org.firstinspires.ftc.teamcode.vision.operators.MorphologyOperator;
+import org.firstinspires.ftc.teamcode.vision.operators.SegmentationOperator;
+import org.firstinspires.ftc.teamcode.vision.operators.YCrCbLookupFilter;
 import org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter;
 import org.firstinspires.ftc.teamcode.vision.scorers.AreaScorer;
 import org.firstinspires.ftc.teamcode.vision.scorers.AspectRatioScorer;
 import org.firstinspires.ftc.teamcode.vision.scorers.ExtentScorer;
 import org.firstinspires.ftc.teamcode.vision.scorers.SolidityScorer;
+import org.opencv.core.Core;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint;
 import org.opencv.core.Point;
 import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
+import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
 import org.openftc.easyopencv.OpenCvPipeline;
 
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -29,20 +39,62 @@ import static org.firstinspires.ftc.teamcode.util.VisionUtil.contains;
 @Config
 public class RingPipeline extends OpenCvPipeline {
     private TelemetryData telemetryData = new TelemetryData("RingPipeline");
+    private final TelemetryData.DoubleEntry scoreEntry = telemetryData.addDouble("Score");
+    private final TelemetryData.BooleanEntry trackingEntry = telemetryData.addBoolean("Tracking");
+    private final TelemetryData.DoubleEntry scoringTimeEntry = telemetryData.addDouble("Scoring time (ms)");
+    private final TelemetryData.BooleanEntry headlessEntry = telemetryData.addBoolean("Headless");
+    private TelemetryData.DoubleEntry stagedLatencyEntry;
+    private TelemetryData.IntEntry stagedDroppedEntry;
+    private TelemetryData.DoubleEntry[] stageTimeEntries;
     public static double SCORE_THRESHOLD = 3;
     public static int THICKNESS = 3;
     public static int RADIUS = 4;
+
+    // Only search a padded region around the last detections, with a full search every so often.
+    // Off until it has been checked on real captures, see RingPipelineReplayTest.
+    public static boolean ROI_TRACKING = false;
+    public static int ROI_PADDING = 20; // px
+    public static int FULL_SEARCH_INTERVAL = 15; // frames
+
+    // Find candidates on an image downscaled by this factor (1 to disable), then refine each one
+    // at full resolution
+    public static int DOWNSCALE = 1;
+    public static int REFINE_PADDING = 4; // px, at full resolution
+
+    // Threshold with a precomputed color table instead of converting every frame to YCrCb
+    public static boolean LOOKUP_FILTER = false;
+
+    // Split touching rings (e.g. a stack) with a watershed instead of one contour per blob
+    public static boolean SEPARATE_RINGS = false;
+
+    // Filter, contours, scoring and annotation each on their own thread. Read when the pipeline
+    // is created, so it takes effect the next time Vision is.
+    public static boolean STAGED = false;
+
+    // While headless (nobody is watching), only annotate every this many frames, 0 for never
+    public static int HEADLESS_PREVIEW_INTERVAL = 0; // frames
+
+    // Raw frames kept in memory for dumpFrameHistory() while recording is on, read the first time
+    // it's turned on
+    public static int FRAME_HISTORY = 30; // frames
     private Viewport viewport = Viewport.ANNOTATED;
 
     private static Rect croppedRect = new Rect(0, (int) ((1-.4)/2 * Vision.HEIGHT), Vision.WIDTH, (int) (Vision.HEIGHT*.4));
     private AnalysisRectMode analysisRectMode = AnalysisRectMode.WIDE;
 
-    private static final Scalar foundColor = new Scalar(0  , 255, 0  );
-    private static final Scalar falseColor = new Scalar(255, 0  , 0  );
+    static final Scalar foundColor = new Scalar(0  , 255, 0  , 255);
+    static final Scalar falseColor = new Scalar(255, 0  , 0  , 255);
+    static final Scalar maskedColor = new Scalar(0  , 0  , 0  , 255);
+    private static final Scalar trackingColor = new Scalar(0  , 0  , 255, 255);
 
-    private final ArrayList<VisionScorer> scorers = new ArrayList<>();
+    private final ScoringChain scoringChain = new ScoringChain();
+    private final RingPipelineStages stages;
+    private volatile FrameHistory<RingData> frameHistory; // null until recording is first turned on
+    private volatile boolean recordingFrames = false;
 
-    private ArrayList<RingData> rings = new ArrayList<>();
+    // Largest ring first
+    private final ResultPublisher<RingData> results = new ResultPublisher<>(
+            (r1, r2) -> Double.compare(r2.getContourArea(), r1.getContourArea()));
 
     public AreaScorer areaScorer = new AreaScorer();
     public AspectRatioScorer aspectRatioSCorer = new AspectRatioScorer();
@@ -51,8 +103,14 @@ public class RingPipeline extends OpenCvPipeline {
 
     public YCrCbRangeFilter YCrCbRangeFilter = new YCrCbRangeFilter();
     public MorphologyOperator morphologyOperator = new MorphologyOperator();
+    // Separate instances so the downscaled and full resolution masks aren't reallocated every frame
+    private final YCrCbRangeFilter coarseFilter = new YCrCbRangeFilter();
+    public YCrCbLookupFilter lookupFilter = new YCrCbLookupFilter();
+    private final YCrCbLookupFilter coarseLookupFilter = new YCrCbLookupFilter();
+    private final MorphologyOperator coarseMorphology = new MorphologyOperator();
 
     private Mat latestMat;
+    private volatile File rawCaptureFile;
 
     public enum Viewport {
         RAW_IMAGE,
@@ -85,11 +143,25 @@ public class RingPipeline extends OpenCvPipeline {
 
     public RingPipeline() {
         setAnalysisRectMode(analysisRectMode);
+        stages = STAGED ? new RingPipelineStages(this) : null;
 
-        scorers.add(areaScorer);
-        scorers.add(aspectRatioSCorer);
-        scorers.add(extentScorer);
-        scorers.add(solidityScorer);
+        scoringChain.add(areaScorer);
+        scoringChain.add(aspectRatioSCorer);
+        scoringChain.add(extentScorer);
+        scoringChain.add(solidityScorer);
+
+        // Registered once, the entries are set in place by updateTelemetry() and endFrame()
+        for (VisionScorer scorer : getScoringChain().getScorers()) {
+            telemetryData.putAll(scorer.getTelemetryData());
+        }
+        telemetryData.putAll(getScoringChain().getTelemetryData());
+    }
+
+    /**
+     * The chain that scores contours, the scoring stage's own in staged mode
+     */
+    private ScoringChain getScoringChain() {
+        return stages != null ? stages.getScoringChain() : scoringChain;
     }
 
     @Override
@@ -106,132 +178,390 @@ public class RingPipeline extends OpenCvPipeline {
         viewport = Viewport.values()[nextStageNum];
     }
 
-    Mat rawImage = new Mat();
-    Mat workingMat = new Mat();
-    Mat croppedWorkingMat;
     Mat rawMask;
     Mat mask;
-    Mat masked = new Mat();
-    Mat markers = new Mat();
-    Mat dist1 = new Mat();
-    Mat dist2 = new Mat();
-    Mat displayMat = new Mat();
-    Mat displaySubmat;
-
 
+    // Reused every frame //
+    private Mat croppedInput; // view of the input, shares its pixels
+    private long croppedInputAddr = 0;
+    private final Mat hierarchy = new Mat();
+    private final Mat inverseMask = new Mat();
+    private final List<MatOfPoint> potentialContours = new ArrayList<>();
+    private final Mat downscaled = new Mat();
+    private final Mat displayMask = new Mat();
+    private final List<MatOfPoint> candidateContours = new ArrayList<>();
+    private final List<Rect> candidateRects = new ArrayList<>();
+    private final SegmentationOperator segmentationOperator = new SegmentationOperator();
+    private final Mat segmentationInput = new Mat();
+
+    // ROI tracking //
+    private volatile Rect trackingRect; // input coordinates, null when there is nothing to track
+    private int framesSinceFullSearch = 0;
+
+    private volatile long scoringNanos = 0;
+
+    // Headless //
+    private volatile boolean headless = false;
+    private int framesSincePreview = 0;
+    private final List<MatOfPoint> ringContours = new ArrayList<>();
+
+    /*
+     * Works on a view of the input rather than copies of it. The input is only written to once
+     * analysis is done, and only for the viewport that is actually being shown.
+     */
     @Override
     public Mat processFrame(Mat input) {
-        Imgproc.cvtColor(input,input,Imgproc.COLOR_RGBA2RGB);
-        input.copyTo(rawImage);
-        input.copyTo(workingMat);
-
-        croppedWorkingMat = workingMat.submat(croppedRect);
-
-        // MatOperator //
-        rawMask = YCrCbRangeFilter.process(croppedWorkingMat);
-        mask = morphologyOperator.process(rawMask);
-
-        masked.release();
-        masked = new Mat();
-        croppedWorkingMat.copyTo(masked, mask);
-
-        List<MatOfPoint> potentialContours = new ArrayList<>();
-
-        // Contours //
-
-        Mat hierarchy = new Mat();
-        Imgproc.findContours(mask, potentialContours, hierarchy,
-                Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
-        hierarchy.release();
+        long timestamp = System.nanoTime();
+        File captureFile = rawCaptureFile;
+        if (captureFile != null) {
+            rawCaptureFile = null;
+            FrameSaver.save(input, captureFile);
+        }
+        if (recordingFrames) frameHistory.record(input, timestamp);
+
+        Mat cropped = getCroppedInput(input);
+        if (stages != null) return processFrameStaged(input, cropped, timestamp);
+
+        // Region of interest //
+        Rect searchRect = croppedRect;
+        if (ROI_TRACKING && trackingRect != null && framesSinceFullSearch < FULL_SEARCH_INTERVAL) {
+            searchRect = trackingRect;
+            framesSinceFullSearch++;
+        } else {
+            framesSinceFullSearch = 0;
+        }
+        Mat search = searchRect == croppedRect ? cropped : input.submat(searchRect);
+
+        // MatOperator and Contours //
+        potentialContours.clear();
+        if (DOWNSCALE > 1) {
+            findContoursDownscaled(input, search, searchRect);
+        } else {
+            rawMask = colorFilter().process(search);
+            mask = morphologyOperator.process(rawMask);
+            findContours(search, mask, searchRect);
+        }
 
+        long scoringStart = System.nanoTime();
         List<RingData> potentialRings = contoursToRingData(potentialContours);
 
         ArrayList<RingData> finalRings = new ArrayList<>();
-        ArrayList<MatOfPoint> finalContours = new ArrayList<>();
-        ArrayList<Point> centers = new ArrayList<>();
 
         // Score and Threshold //
         for (int i = 0; i < potentialRings.size(); i++) {
             RingData ring = potentialRings.get(i);
             // Must be within analysisRect to be analyzed
             if (contains(analysisRectMode.getRect(), ring.getBoundingRect())) {
-                double score = calculateScore(ring);
+                double score = scoringChain.score(ring, SCORE_THRESHOLD);
                 if (score <= SCORE_THRESHOLD) {
                     finalRings.add(ring);
-                    finalContours.add(ring.getContour());
-                    centers.add(ring.getCentroid());
-                    telemetryData.put("Score", score);
+                    scoreEntry.set(score);
                 }
             }
         }
 
-        rings = finalRings;
-
-        // Draw contours //
-        Imgproc.drawContours(croppedWorkingMat, potentialContours, -1, falseColor, THICKNESS);
-        Imgproc.drawContours(croppedWorkingMat, finalContours, -1, foundColor, THICKNESS);
-
-        // Draw centroids //
-        for (Point center: centers) {
-            Imgproc.circle(croppedWorkingMat, center, RADIUS, foundColor, THICKNESS);
-        }
-
-        // Draw rectangles //
-        Imgproc.rectangle(croppedWorkingMat, analysisRectMode.getRect(), foundColor, THICKNESS);
-        Imgproc.rectangle(workingMat, croppedRect, foundColor, THICKNESS/2);
+        scoringChain.endFrame();
+        scoringNanos = System.nanoTime() - scoringStart;
 
-        rawImage.copyTo(displayMat);
-        displaySubmat = displayMat.submat(croppedRect);
+        publish(finalRings, timestamp);
+        updateTrackingRect(finalRings);
 
-        switch (viewport) {
+        // Display //
+        switch (getShownViewport()) {
             case RAW_IMAGE:
-                rawImage.copyTo(displayMat);
                 break;
             case RAW_MASK:
-                Imgproc.cvtColor(rawMask, displaySubmat, Imgproc.COLOR_GRAY2RGB);
+                Imgproc.cvtColor(fullSizeMask(rawMask, search), search, Imgproc.COLOR_GRAY2RGBA);
                 break;
             case MASK:
-                Imgproc.cvtColor(mask, displaySubmat, Imgproc.COLOR_GRAY2RGB);
+                Imgproc.cvtColor(fullSizeMask(mask, search), search, Imgproc.COLOR_GRAY2RGBA);
                 break;
             case MASKED:
-                masked.copyTo(displaySubmat);
+                Core.bitwise_not(fullSizeMask(mask, search), inverseMask);
+                search.setTo(maskedColor, inverseMask);
                 break;
             default:
-                workingMat.copyTo(displayMat);
+                // Draw contours //
+                ringContours.clear();
+                for (RingData ring : finalRings) {
+                    ringContours.add(ring.getContour());
+                }
+                Imgproc.drawContours(cropped, potentialContours, -1, falseColor, THICKNESS);
+                Imgproc.drawContours(cropped, ringContours, -1, foundColor, THICKNESS);
+
+                // Draw centroids //
+                for (RingData ring : finalRings) {
+                    Imgproc.circle(cropped, ring.getCentroid(), RADIUS, foundColor, THICKNESS);
+                }
+
+                // Draw rectangles //
+                Imgproc.rectangle(cropped, analysisRectMode.getRect(), foundColor, THICKNESS);
+                Imgproc.rectangle(input, croppedRect, foundColor, THICKNESS/2);
+                if (searchRect != croppedRect) {
+                    Imgproc.rectangle(input, searchRect, trackingColor, THICKNESS/2);
+                }
                 break;
         }
-        latestMat = displayMat;
-        return displayMat;
+        if (search != cropped) search.release();
+        latestMat = input;
+        return input;
+    }
+
+    /*
+     * Hands the frame to the stages and shows the latest one they've finished, which is a frame or
+     * two behind
+     */
+    private Mat processFrameStaged(Mat input, Mat cropped, long timestamp) {
+        Viewport shown = getShownViewport();
+        stages.submit(cropped, timestamp, shown, analysisRectMode.getRect());
+        if (shown != Viewport.RAW_IMAGE && stages.drawLatest(cropped)) {
+            Imgproc.rectangle(input, croppedRect, foundColor, THICKNESS/2);
+        }
+        latestMat = input;
+        return input;
+    }
+
+    /*
+     * Nothing is drawn while headless, except for an occasional preview frame
+     */
+    private Viewport getShownViewport() {
+        if (!headless) return viewport;
+        if (HEADLESS_PREVIEW_INTERVAL > 0 && ++framesSincePreview >= HEADLESS_PREVIEW_INTERVAL) {
+            framesSincePreview = 0;
+            return viewport;
+        }
+        return Viewport.RAW_IMAGE;
+    }
+
+    /**
+     * Skip annotation and display copies when no one is watching the viewport or camera stream.
+     * Detection and results are unaffected.
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /*
+     * Called from the camera thread, or from the scoring stage (and only there) when staged
+     */
+    void publish(List<RingData> rings, long timestamp) {
+        List<RingData> published = results.publish(rings, timestamp).getResults();
+        if (recordingFrames) frameHistory.setResults(timestamp, published);
+    }
+
+    /**
+     * Stops the stage threads, if staged
+     */
+    public void close() {
+        if (stages != null) stages.stop();
+    }
+
+    public boolean isStaged() {
+        return stages != null;
+    }
+
+    /**
+     * Mean time from a frame arriving to its results being annotated when staged, in ms
+     */
+    public double getStagedLatency() {
+        return stages == null ? 0 : stages.getMeanLatency();
+    }
+    public long getStagedFramesCompleted() {
+        return stages == null ? 0 : stages.getCompleted();
+    }
+    public long getStagedFramesDropped() {
+        return stages == null ? 0 : stages.getDropped();
+    }
+    /**
+     * True when no frame is queued or being processed by the stages
+     */
+    public boolean isStagedIdle() {
+        return stages == null || stages.isIdle();
+    }
+
+    /*
+     * The camera hands over the same buffer every frame, so the submat only has to be rebuilt if
+     * that changes
+     */
+    private Mat getCroppedInput(Mat input) {
+        if (croppedInput == null || croppedInputAddr != input.dataAddr()) {
+            if (croppedInput != null) croppedInput.release();
+            croppedInput = input.submat(croppedRect);
+            croppedInputAddr = input.dataAddr();
+        }
+        return croppedInput;
+    }
+
+    private MatOperator colorFilter() {
+        return LOOKUP_FILTER ? lookupFilter : YCrCbRangeFilter;
+    }
+
+    /*
+     * Offset so contours are always relative to croppedRect, whatever region the mask covers
+     */
+    private void findContours(Mat image, Mat mask, Rect maskRect) {
+        Point offset = new Point(maskRect.x - croppedRect.x, maskRect.y - croppedRect.y);
+        if (SEPARATE_RINGS) {
+            // Only the masked pixels of the image, so the watershed sees nothing but rings
+            segmentationInput.create(image.size(), image.type());
+            segmentationInput.setTo(maskedColor);
+            image.copyTo(segmentationInput, mask);
+            segmentationOperator.process(segmentationInput, potentialContours, offset);
+        } else {
+            Imgproc.findContours(mask, potentialContours, hierarchy,
+                    Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE, offset);
+        }
+    }
+
+    /*
+     * Thresholds a downscaled copy of the search region to find candidate blobs cheaply, then runs
+     * the full resolution operators only on a padded region around each candidate, so bounding
+     * boxes are as accurate as a full resolution search
+     */
+    private void findContoursDownscaled(Mat input, Mat search, Rect searchRect) {
+        Imgproc.resize(search, downscaled, new Size(search.cols() / DOWNSCALE, search.rows() / DOWNSCALE),
+                0, 0, Imgproc.INTER_AREA);
+        rawMask = (LOOKUP_FILTER ? coarseLookupFilter : coarseFilter).process(downscaled);
+        mask = coarseMorphology.process(rawMask);
+
+        candidateContours.clear();
+        Imgproc.findContours(mask, candidateContours, hierarchy,
+                Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        // Candidate regions in input coordinates
+        candidateRects.clear();
+        for (MatOfPoint contour : candidateContours) {
+            Rect rect = Imgproc.boundingRect(contour);
+            contour.release();
+            Rect region = clip(new Rect(
+                    searchRect.x + rect.x * DOWNSCALE - REFINE_PADDING,
+                    searchRect.y + rect.y * DOWNSCALE - REFINE_PADDING,
+                    rect.width * DOWNSCALE + 2 * REFINE_PADDING,
+                    rect.height * DOWNSCALE + 2 * REFINE_PADDING), searchRect);
+            if (region.area() > 0) candidateRects.add(region);
+        }
+        mergeOverlapping(candidateRects);
+
+        for (Rect rect : candidateRects) {
+            Mat region = input.submat(rect);
+            findContours(region, morphologyOperator.process(colorFilter().process(region)), rect);
+            region.release();
+        }
+    }
+
+    /*
+     * Masks from a downscaled search are scaled back up for display
+     */
+    private Mat fullSizeMask(Mat mask, Mat search) {
+        if (mask.size().equals(search.size())) return mask;
+        Imgproc.resize(mask, displayMask, search.size(), 0, 0, Imgproc.INTER_NEAREST);
+        return displayMask;
+    }
+
+    private static Rect clip(Rect rect, Rect bounds) {
+        int left = Math.max(rect.x, bounds.x);
+        int top = Math.max(rect.y, bounds.y);
+        int right = Math.min(rect.x + rect.width, bounds.x + bounds.width);
+        int bottom = Math.min(rect.y + rect.height, bounds.y + bounds.height);
+        return new Rect(left, top, Math.max(right - left, 0), Math.max(bottom - top, 0));
+    }
+
+    /*
+     * Merges overlapping regions so the same ring isn't found twice
+     */
+    private static void mergeOverlapping(List<Rect> rects) {
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < rects.size() && !merged; i++) {
+                for (int j = i + 1; j < rects.size() && !merged; j++) {
+                    Rect a = rects.get(i), b = rects.get(j);
+                    if (a.x < b.x + b.width && b.x < a.x + a.width && a.y < b.y + b.height && b.y < a.y + a.height) {
+                        int left = Math.min(a.x, b.x), top = Math.min(a.y, b.y);
+                        int right = Math.max(a.x + a.width, b.x + b.width);
+                        int bottom = Math.max(a.y + a.height, b.y + b.height);
+                        rects.set(i, new Rect(left, top, right - left, bottom - top));
+                        rects.remove(j);
+                        merged = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Padded bounding box of every ring found, in input coordinates and clipped to croppedRect.
+     * Losing every ring drops back to a full search on the next frame.
+     */
+    private void updateTrackingRect(List<RingData> rings) {
+        if (rings.isEmpty()) {
+            trackingRect = null;
+            return;
+        }
+        int left = Integer.MAX_VALUE, top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+        for (RingData ring : rings) {
+            Rect rect = ring.getBoundingRect();
+            left = Math.min(left, rect.x);
+            top = Math.min(top, rect.y);
+            right = Math.max(right, rect.x + rect.width);
+            bottom = Math.max(bottom, rect.y + rect.height);
+        }
+        left = Math.max(croppedRect.x, croppedRect.x + left - ROI_PADDING);
+        top = Math.max(croppedRect.y, croppedRect.y + top - ROI_PADDING);
+        right = Math.min(croppedRect.x + croppedRect.width, croppedRect.x + right + ROI_PADDING);
+        bottom = Math.min(croppedRect.y + croppedRect.height, croppedRect.y + bottom + ROI_PADDING);
+        trackingRect = new Rect(left, top, right - left, bottom - top);
+    }
+
+    /**
+     * Time spent building and scoring contours in the last frame, in ms
+     */
+    public double getScoringTime() {
+        return scoringNanos / 1e6;
+    }
+
+    public boolean isTracking() {
+        return trackingRect != null;
     }
 
     public void updateTelemetry() {
-        for (VisionScorer scorer : scorers) {
+        for (VisionScorer scorer : getScoringChain().getScorers()) {
             scorer.updateTelemetry();
         }
     }
 
     public Map<String, Object> getTelemetryData() {
-        for (VisionScorer scorer : scorers) {
-            scorer.updateTelemetry();
-            telemetryData.putAll(scorer.getTelemetryData());
+        trackingEntry.set(isTracking());
+        scoringTimeEntry.set(getScoringTime());
+        headlessEntry.set(headless);
+        if (stages != null) {
+            if (stagedLatencyEntry == null) {
+                stagedLatencyEntry = telemetryData.addDouble("Staged latency (ms)");
+                stagedDroppedEntry = telemetryData.addInt("Staged frames dropped");
+                stageTimeEntries = new TelemetryData.DoubleEntry[RingPipelineStages.STAGE_NAMES.length];
+                for (int i = 0; i < stageTimeEntries.length; i++) {
+                    stageTimeEntries[i] = telemetryData.addDouble(RingPipelineStages.STAGE_NAMES[i] + " stage time (ms)");
+                }
+            }
+            stagedLatencyEntry.set(getStagedLatency());
+            stagedDroppedEntry.set((int) getStagedFramesDropped());
+            for (int i = 0; i < stageTimeEntries.length; i++) {
+                stageTimeEntries[i].set(stages.getStageTime(i));
+            }
         }
         return telemetryData.getData();
     }
 
     public void updateLogging() {
-        for (VisionScorer scorer : scorers) {
+        for (VisionScorer scorer : getScoringChain().getScorers()) {
             scorer.updateLogging();
         }
     }
 
-    private double calculateScore(RingData ringData) {
-        double score = 0.0;
-        for (VisionScorer scorer : scorers) {
-            score += scorer.score(ringData);
-        }
-        return score;
-    }
-
     public void setClose(boolean close) {
         morphologyOperator.setClose(close);
     }
@@ -240,10 +570,15 @@ public class RingPipeline extends OpenCvPipeline {
         this.analysisRectMode = analysisRectMode;
     }
 
-    public ArrayList<RingData> getRingData() {
-        Collections.sort(rings, (r1, r2) -> (int) (r1.getContourArea() - r2.getContourArea()));
-        Collections.reverse(rings);
-        return rings;
+    /**
+     * Rings from the latest frame, largest first. Safe to call from any thread.
+     */
+    public List<RingData> getRingData() {
+        return results.getLatest().getResults();
+    }
+
+    public VisionSnapshot<RingData> getLatestResult() {
+        return results.getLatest();
     }
 
     public List<RingData> contoursToRingData(List<MatOfPoint> contours) {
@@ -254,13 +589,55 @@ public class RingPipeline extends OpenCvPipeline {
         return ringData;
     }
 
+    /**
+     * Region of the camera frame that is searched, ring coordinates are relative to its top left
+     */
+    public static Rect getCroppedRect() {
+        return croppedRect;
+    }
+
     public Viewport getViewport() {
         return viewport;
     }
     public void setViewport(Viewport viewport) {
         this.viewport = viewport;
     }
-    public void saveLatestMat(String filename) {
-        saveMatToDisk(latestMat, filename);
+    /**
+     * Saves whatever the viewport last returned in the background
+     */
+    public void saveLatestMat(File file) {
+        FrameSaver.save(latestMat, file);
+    }
+
+    /**
+     * Save the next frame before anything is drawn on it, so it can be replayed with FrameReplay.
+     * The camera thread only copies the frame, it's written in the background.
+     */
+    public void captureRawFrame(File file) {
+        rawCaptureFile = file;
+    }
+
+    /**
+     * Keeps the last FRAME_HISTORY raw frames for dumpFrameHistory(). Off by default, every frame
+     * is copied while it's on. The history is allocated the first time this is turned on and kept
+     * after that.
+     */
+    public void setRecordingFrames(boolean recording) {
+        if (recording && frameHistory == null) {
+            frameHistory = new FrameHistory<>(FRAME_HISTORY,
+                    "rings,largest area,largest height,largest centroid x,largest centroid y",
+                    rings -> rings.isEmpty() ? "0,,,," : rings.size() + "," + rings.get(0).getContourArea() + ","
+                            + rings.get(0).getBoxSize().height + "," + rings.get(0).getCentroid().x + ","
+                            + rings.get(0).getCentroid().y);
+        }
+        recordingFrames = recording;
+    }
+
+    /**
+     * Writes the last FRAME_HISTORY raw frames and their results to the log folder in the
+     * background, as name.frames and name.csv. Nothing is written unless recording was turned on.
+     */
+    public void dumpFrameHistory(String name) {
+        if (frameHistory != null) frameHistory.dump(name);
     }
 }
@@ -0,0 +1,229 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import org.firstinspires.ftc.robotlib.vision.MatOperator;
+import org.firstinspires.ftc.robotlib.vision.ScoringChain;
+import org.firstinspires.ftc.robotlib.vision.StagedExecutor;
+import org.firstinspires.ftc.teamcode.vision.operators.MorphologyOperator;
+import org.firstinspires.ftc.teamcode.vision.operators.SegmentationOperator;
+import org.firstinspires.ftc.teamcode.vision.operators.YCrCbLookupFilter;
+import org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter;
+import org.firstinspires.ftc.teamcode.vision.scorers.AreaScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.AspectRatioScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.ExtentScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.SolidityScorer;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.util.VisionUtil.contains;
+import static org.firstinspires.ftc.teamcode.vision.RingPipeline.RADIUS;
+import static org.firstinspires.ftc.teamcode.vision.RingPipeline.SCORE_THRESHOLD;
+import static org.firstinspires.ftc.teamcode.vision.RingPipeline.THICKNESS;
+import static org.firstinspires.ftc.teamcode.vision.RingPipeline.falseColor;
+import static org.firstinspires.ftc.teamcode.vision.RingPipeline.foundColor;
+import static org.firstinspires.ftc.teamcode.vision.RingPipeline.maskedColor;
+
+/**
+ * RingPipeline split into filter, contour, scoring and annotation stages, each on its own thread
+ * with a drop-oldest queue of one frame in front of it. The camera thread only copies the cropped
+ * frame in and the latest annotated frame out, so a slow frame never delays the next capture.
+ *
+ * Every stage has its own operators and buffers, and each frame carries the Mats the stages write
+ * into. ROI tracking and downscaling feed one frame's result into the next frame's search, so the
+ * staged pipeline always searches the whole cropped region at full resolution.
+ */
+class RingPipelineStages {
+    private static final int QUEUE_CAPACITY = 1;
+    static final String[] STAGE_NAMES = {"Filter", "Contours", "Scoring", "Annotation"};
+
+    static class RingFrame {
+        final Mat frame = new Mat(); // copy of the cropped input, annotated in place
+        final Mat rawMask = new Mat();
+        final Mat mask = new Mat();
+        final List<MatOfPoint> contours = new ArrayList<>();
+        final List<RingData> rings = new ArrayList<>();
+        final List<MatOfPoint> ringContours = new ArrayList<>();
+        long timestamp; // System.nanoTime() when the frame reached the pipeline
+        RingPipeline.Viewport viewport;
+        Rect analysisRect;
+    }
+
+    private final RingPipeline pipeline;
+    private final StagedExecutor<RingFrame> executor;
+
+    // Filter stage //
+    private final YCrCbRangeFilter rangeFilter = new YCrCbRangeFilter();
+    private final YCrCbLookupFilter lookupFilter = new YCrCbLookupFilter();
+    private final MorphologyOperator morphologyOperator = new MorphologyOperator();
+
+    // Contour stage //
+    private final Mat hierarchy = new Mat();
+    private final SegmentationOperator segmentationOperator = new SegmentationOperator();
+    private final Mat segmentationInput = new Mat();
+    private final Point noOffset = new Point();
+
+    // Scoring stage //
+    private final ScoringChain scoringChain = new ScoringChain();
+
+    // Annotation stage //
+    private final Mat display = new Mat();
+
+    private volatile long completed = 0;
+    private volatile long totalLatencyNanos = 0;
+
+    RingPipelineStages(RingPipeline pipeline) {
+        this.pipeline = pipeline;
+
+        scoringChain.add(new AreaScorer());
+        scoringChain.add(new AspectRatioScorer());
+        scoringChain.add(new ExtentScorer());
+        scoringChain.add(new SolidityScorer());
+
+        List<StagedExecutor.Stage<RingFrame>> stages = Arrays.asList(
+                this::filter, this::findContours, this::score, this::annotate);
+        List<RingFrame> frames = new ArrayList<>();
+        for (int i = 0; i < stages.size() * (QUEUE_CAPACITY + 1) + 1; i++) {
+            frames.add(new RingFrame());
+        }
+        executor = new StagedExecutor<>(frames, QUEUE_CAPACITY, this::onComplete, stages);
+        executor.start();
+    }
+
+    // Camera thread //
+    void submit(Mat cropped, long timestamp, RingPipeline.Viewport viewport, Rect analysisRect) {
+        RingFrame frame = executor.acquire();
+        if (frame == null) return;
+        cropped.copyTo(frame.frame);
+        frame.timestamp = timestamp;
+        frame.viewport = viewport;
+        frame.analysisRect = analysisRect;
+        executor.submit(frame);
+    }
+
+    /**
+     * Copies the latest annotated frame over cropped, false if no frame has finished yet
+     */
+    boolean drawLatest(Mat cropped) {
+        synchronized (display) {
+            if (display.empty()) return false;
+            display.copyTo(cropped);
+            return true;
+        }
+    }
+
+    void stop() {
+        executor.stop();
+    }
+
+    // Stages //
+    private void filter(RingFrame frame) {
+        MatOperator colorFilter = RingPipeline.LOOKUP_FILTER ? lookupFilter : rangeFilter;
+        Mat rawMask = colorFilter.process(frame.frame);
+        if (frame.viewport == RingPipeline.Viewport.RAW_MASK) rawMask.copyTo(frame.rawMask);
+        morphologyOperator.process(rawMask).copyTo(frame.mask);
+    }
+
+    private void findContours(RingFrame frame) {
+        frame.contours.clear();
+        if (RingPipeline.SEPARATE_RINGS) {
+            segmentationInput.create(frame.frame.size(), frame.frame.type());
+            segmentationInput.setTo(maskedColor);
+            frame.frame.copyTo(segmentationInput, frame.mask);
+            segmentationOperator.process(segmentationInput, frame.contours, noOffset);
+        } else {
+            Imgproc.findContours(frame.mask, frame.contours, hierarchy,
+                    Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        }
+    }
+
+    private void score(RingFrame frame) {
+        frame.rings.clear();
+        frame.ringContours.clear();
+        for (MatOfPoint contour : frame.contours) {
+            RingData ring = new RingData(contour);
+            // Must be within analysisRect to be analyzed
+            if (contains(frame.analysisRect, ring.getBoundingRect())
+                    && scoringChain.score(ring, SCORE_THRESHOLD) <= SCORE_THRESHOLD) {
+                frame.rings.add(ring);
+                frame.ringContours.add(contour);
+            }
+        }
+        scoringChain.endFrame();
+        pipeline.publish(frame.rings, frame.timestamp);
+    }
+
+    private void annotate(RingFrame frame) {
+        switch (frame.viewport) {
+            case RAW_IMAGE:
+                return;
+            case RAW_MASK:
+                Imgproc.cvtColor(frame.rawMask, frame.frame, Imgproc.COLOR_GRAY2RGBA);
+                break;
+            case MASK:
+                Imgproc.cvtColor(frame.mask, frame.frame, Imgproc.COLOR_GRAY2RGBA);
+                break;
+            case MASKED:
+                Core.bitwise_not(frame.mask, frame.mask);
+                frame.frame.setTo(maskedColor, frame.mask);
+                break;
+            default:
+                Imgproc.drawContours(frame.frame, frame.contours, -1, falseColor, THICKNESS);
+                Imgproc.drawContours(frame.frame, frame.ringContours, -1, foundColor, THICKNESS);
+                for (RingData ring : frame.rings) {
+                    Imgproc.circle(frame.frame, ring.getCentroid(), RADIUS, foundColor, THICKNESS);
+                }
+                Imgproc.rectangle(frame.frame, frame.analysisRect, foundColor, THICKNESS);
+                break;
+        }
+        synchronized (display) {
+            frame.frame.copyTo(display);
+        }
+    }
+
+    private void onComplete(RingFrame frame) {
+        totalLatencyNanos += System.nanoTime() - frame.timestamp;
+        completed++;
+    }
+
+    // Stats //
+    /**
+     * Mean time from a frame reaching the pipeline to it being annotated, in ms
+     */
+    double getMeanLatency() {
+        long completed = this.completed;
+        return completed == 0 ? 0 : totalLatencyNanos / 1e6 / completed;
+    }
+
+    long getCompleted() {
+        return completed;
+    }
+
+    long getDropped() {
+        return executor.getDropped();
+    }
+
+    /**
+     * Moving average of each stage's time per frame in ms, in STAGE_NAMES order
+     */
+    double getStageTime(int stage) {
+        return executor.getStageTime(stage);
+    }
+
+    /**
+     * The scoring stage's chain, which replaces the pipeline's own in staged mode
+     */
+    ScoringChain getScoringChain() {
+        return scoringChain;
+    }
+
+    boolean isIdle() {
+        return executor.isIdle();
+    }
+}
@@ -0,0 +1,121 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import com.acmerobotics.dashboard.config.Config;
+
+import org.firstinspires.ftc.robotlib.vision.VisionSnapshot;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.hardware.subsystems.Vision.RING_AREA_MIN;
+import static org.firstinspires.ftc.teamcode.hardware.subsystems.Vision.oneRingHeight;
+import static org.firstinspires.ftc.teamcode.hardware.subsystems.Vision.zeroRingHeight;
+
+/**
+ * Decides the starting stack size (0, 1 or 4) from a vote over the last WINDOW frames instead of a
+ * single frame, so one noisy frame doesn't pick the wrong target zone.
+ *
+ * Each frame votes for the size its largest ring's height falls in, weighted by how far that height
+ * is from the nearest threshold. The answer is ready once MIN_FRAMES have voted and the winning
+ * size has at least MIN_CONFIDENCE of the total weight, so autonomous can start as soon as the
+ * camera agrees with itself rather than after a fixed delay.
+ */
+@Config
+public class StackClassifier {
+    public static int WINDOW = 15; // frames
+    public static int MIN_FRAMES = 5;
+    public static double MIN_CONFIDENCE = 0.8;
+    // px, heights closer than this to a threshold get a proportionally smaller vote
+    public static double HEIGHT_MARGIN = 3;
+
+    private static final int[] STACK_SIZES = {0, 1, 4};
+
+    private final int[] votes = new int[WINDOW]; // index into STACK_SIZES
+    private final double[] weights = new double[WINDOW];
+    private final double[] totals = new double[STACK_SIZES.length];
+    private int start = 0, size = 0;
+    private long lastSequence = 0;
+
+    private int stackSize = 0;
+    private double confidence = 0;
+
+    /**
+     * Adds the frame's vote, snapshots that were already added are ignored
+     */
+    public void add(VisionSnapshot<RingData> snapshot) {
+        if (snapshot.getSequence() == 0 || snapshot.getSequence() == lastSequence) return;
+        lastSequence = snapshot.getSequence();
+
+        int i;
+        if (size < votes.length) {
+            i = (start + size) % votes.length;
+            size++;
+        } else {
+            i = start;
+            start = (start + 1) % votes.length;
+        }
+        vote(snapshot.getResults(), i);
+
+        // Tally the window
+        Arrays.fill(totals, 0);
+        double total = 0;
+        for (int j = 0; j < size; j++) {
+            int k = (start + j) % votes.length;
+            totals[votes[k]] += weights[k];
+            total += weights[k];
+        }
+        int best = 0;
+        for (int j = 1; j < totals.length; j++) {
+            if (totals[j] > totals[best]) best = j;
+        }
+        stackSize = STACK_SIZES[best];
+        confidence = total > 0 ? totals[best] / total : 0;
+    }
+
+    private void vote(List<RingData> rings, int i) {
+        votes[i] = 0;
+        weights[i] = 1;
+        if (rings.isEmpty()) return;
+
+        RingData centerRing = rings.get(0);
+        if (centerRing.getNormalizedContourArea() < RING_AREA_MIN) return;
+
+        double height = centerRing.getBoxSize().height;
+        if (height > oneRingHeight) {
+            votes[i] = 2;
+        } else if (height > zeroRingHeight) {
+            votes[i] = 1;
+        }
+        double distance = Math.min(Math.abs(height - oneRingHeight), Math.abs(height - zeroRingHeight));
+        weights[i] = Math.min(distance / HEIGHT_MARGIN, 1);
+    }
+
+    public void reset() {
+        start = 0;
+        size = 0;
+        stackSize = 0;
+        confidence = 0;
+    }
+
+    /**
+     * Most likely stack size so far, 0 if no frames have been added
+     */
+    public int getStackSize() {
+        return stackSize;
+    }
+
+    /**
+     * Fraction of the window's vote weight for getStackSize(), from 0 to 1
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public int getFrameCount() {
+        return size;
+    }
+
+    public boolean isReady() {
+        return size >= MIN_FRAMES && confidence >= MIN_CONFIDENCE;
+    }
+}
@@ -0,0 +1,103 @@
+package org.firstinspires.ftc.teamcode.vision.operators;
+
+import org.firstinspires.ftc.robotlib.vision.MatOperator;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import static org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter.blur;
+import static org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter.blurSigma;
+import static org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter.lowerThresholdCb;
+import static org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter.lowerThresholdCr;
+import static org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter.lowerThresholdY;
+import static org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter.upperThresholdCb;
+import static org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter.upperThresholdCr;
+import static org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter.upperThresholdY;
+
+/**
+ * Same mask as YCrCbRangeFilter, but looks every RGB(A) pixel up in a precomputed table of which
+ * colors are inside the YCrCb thresholds instead of converting the whole frame and running inRange.
+ *
+ * Thresholds and blur come from YCrCbRangeFilter's @Config fields. The table packs one bit per
+ * 24 bit color (2 MB), is shared between instances and is only rebuilt when the thresholds change.
+ * The blur is applied in RGB, which matches blurring in YCrCb up to rounding since the conversion
+ * is linear.
+ */
+public class YCrCbLookupFilter implements MatOperator {
+    private static long[] table;
+    private static int[] tableThresholds;
+
+    private final Mat blurred = new Mat();
+    private final Mat mask = new Mat();
+    private byte[] pixels = new byte[0];
+    private byte[] maskPixels = new byte[0];
+
+    @Override
+    public Mat process(Mat img) {
+        long[] table = getTable();
+
+        // Blur also copies the (possibly cropped) input into a continuous buffer
+        if (blur.width > 0 && blur.height > 0) {
+            Imgproc.GaussianBlur(img, blurred, blur, blurSigma);
+        } else {
+            img.copyTo(blurred);
+        }
+
+        int channels = blurred.channels();
+        int count = blurred.rows() * blurred.cols();
+        if (pixels.length != count * channels) pixels = new byte[count * channels];
+        if (maskPixels.length != count) maskPixels = new byte[count];
+        blurred.get(0, 0, pixels);
+
+        for (int i = 0, p = 0; i < count; i++, p += channels) {
+            int color = (pixels[p] & 0xff) << 16 | (pixels[p + 1] & 0xff) << 8 | (pixels[p + 2] & 0xff);
+            maskPixels[i] = (table[color >>> 6] >>> color & 1) != 0 ? (byte) 255 : 0;
+        }
+
+        mask.create(blurred.rows(), blurred.cols(), CvType.CV_8UC1);
+        mask.put(0, 0, maskPixels);
+        return mask;
+    }
+
+    private static synchronized long[] getTable() {
+        if (table == null || tableThresholds[0] != lowerThresholdY || tableThresholds[1] != lowerThresholdCr
+                || tableThresholds[2] != lowerThresholdCb || tableThresholds[3] != upperThresholdY
+                || tableThresholds[4] != upperThresholdCr || tableThresholds[5] != upperThresholdCb) {
+            tableThresholds = new int[] {
+                    lowerThresholdY, lowerThresholdCr, lowerThresholdCb,
+                    upperThresholdY, upperThresholdCr, upperThresholdCb
+            };
+            table = buildTable(tableThresholds);
+        }
+        return table;
+    }
+
+    /*
+     * Uses OpenCV's fixed point RGB2YCrCb coefficients so the table matches cvtColor exactly
+     */
+    private static long[] buildTable(int[] t) {
+        final int shift = 14, round = 1 << (shift - 1), delta = 128 << shift;
+        long[] table = new long[1 << 18];
+        for (int r = 0; r < 256; r++) {
+            for (int g = 0; g < 256; g++) {
+                int rg = r * 4899 + g * 9617;
+                for (int b = 0; b < 256; b++) {
+                    int y = (rg + b * 1868 + round) >> shift;
+                    if (y < t[0] || y > t[3]) continue;
+                    int cr = clamp(((r - y) * 11682 + delta + round) >> shift);
+                    if (cr < t[1] || cr > t[4]) continue;
+                    int cb = clamp(((b - y) * 9241 + delta + round) >> shift);
+                    if (cb < t[2] || cb > t[5]) continue;
+
+                    int color = r << 16 | g << 8 | b;
+                    table[color >>> 6] |= 1L << color;
+                }
+            }
+        }
+        return table;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -4,6 +4,7 @@ import android.util.Log;
 
 import com.acmerobotics.dashboard.config.Config;
 
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 import org.firstinspires.ftc.robotlib.vision.AbstractVisionScorer;
 import org.firstinspires.ftc.teamcode.vision.RingData;
 
@@ -11,6 +12,7 @@ import org.firstinspires.ftc.teamcode.vision.RingData;
 public class AreaScorer extends AbstractVisionScorer {
     public static double weight = 30;
     private double area;
+    private final TelemetryData.DoubleEntry areaEntry = telemetry.addDouble("Area");
 
     public AreaScorer() {
         super("Area Scorer");
@@ -31,9 +33,17 @@ public class AreaScorer extends AbstractVisionScorer {
         return weight;
     }
 
+    /*
+     * Normalized area is at most 1
+     */
+    @Override
+    public double getMinScore() {
+        return Math.min(-weight, 0);
+    }
+
     @Override
     public void updateTelemetry() {
-        telemetry.put("Area", area);
+        areaEntry.set(area);
     }
 
     @Override
@@ -4,6 +4,7 @@ import android.util.Log;
 
 import com.acmerobotics.dashboard.config.Config;
 
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 import org.firstinspires.ftc.robotlib.vision.AbstractVisionScorer;
 import org.firstinspires.ftc.teamcode.vision.RingData;
 import org.opencv.core.Rect;
@@ -16,6 +17,7 @@ public class AspectRatioScorer extends AbstractVisionScorer {
     public static double optimalRatio = 5.0 / 0.75;
     public static double weight = .01;
     private double ratio;
+    private final TelemetryData.DoubleEntry ratioEntry = telemetry.addDouble("Ratio");
 
     public AspectRatioScorer() {
         super("Aspect Ratio Scorer");
@@ -40,7 +42,7 @@ public class AspectRatioScorer extends AbstractVisionScorer {
 
     @Override
     public void updateTelemetry() {
-        telemetry.put("Ratio", ratio);
+        ratioEntry.set(ratio);
     }
 
     @Override
@@ -4,6 +4,7 @@ import android.util.Log;
 
 import com.acmerobotics.dashboard.config.Config;
 
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 import org.firstinspires.ftc.robotlib.vision.AbstractVisionScorer;
 import org.firstinspires.ftc.teamcode.vision.RingData;
 
@@ -14,6 +15,7 @@ public class ExtentScorer extends AbstractVisionScorer {
     public static double optimalRatio = .86;
     public static double weight = 1;
     private double ratio;
+    private final TelemetryData.DoubleEntry ratioEntry = telemetry.addDouble("Ratio");
 
     public ExtentScorer() {
         super("Extent Scorer");
@@ -35,9 +37,17 @@ public class ExtentScorer extends AbstractVisionScorer {
         return weight;
     }
 
+    /*
+     * Contour area and bounding rect
+     */
+    @Override
+    public double getCost() {
+        return 2;
+    }
+
     @Override
     public void updateTelemetry() {
-        telemetry.put("Ratio", ratio);
+        ratioEntry.set(ratio);
     }
 
     @Override
@@ -4,6 +4,7 @@ import android.util.Log;
 
 import com.acmerobotics.dashboard.config.Config;
 
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
 import org.firstinspires.ftc.robotlib.vision.AbstractVisionScorer;
 import org.firstinspires.ftc.teamcode.vision.RingData;
 
@@ -14,6 +15,7 @@ public class SolidityScorer extends AbstractVisionScorer {
     public static double optimalRatio = .97;
     public static double weight = 1;
     private double ratio;
+    private final TelemetryData.DoubleEntry ratioEntry = telemetry.addDouble("Ratio");
 
     public SolidityScorer() {
         super("Solidity Scorer");
@@ -35,9 +37,17 @@ public class SolidityScorer extends AbstractVisionScorer {
         return weight;
     }
 
+    /*
+     * Contour area plus the convex hull, which copies the contour to find the hull points
+     */
+    @Override
+    public double getCost() {
+        return 5;
+    }
+
     @Override
     public void updateTelemetry() {
-        telemetry.put("Ratio", ratio);
+        ratioEntry.set(ratio);
     }
 
     @Override
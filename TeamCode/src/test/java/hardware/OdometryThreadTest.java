@@ -0,0 +1,155 @@
+package hardware;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+
+import org.firstinspires.ftc.robotlib.hardware.Encoder;
+import org.firstinspires.ftc.robotlib.hardware.odometry.OdometryThread;
+import org.firstinspires.ftc.robotlib.hardware.odometry.PoseSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OdometryThreadTest {
+    private static final long TIMEOUT_MS = 5000; // only reached if the odometry thread stalls
+    private static final int READERS = 3;
+    private static final long SAMPLES = 2000;
+
+    private final AtomicInteger ticks = new AtomicInteger();
+    private Encoder encoder;
+    private OdometryThread odometryThread;
+
+    /*
+     * Moves x by one encoder tick per sample, so until the pose is reset the snapshot with sequence n
+     * must have x == n. A snapshot pairing one sample's pose with another's sequence breaks that.
+     */
+    private class FakeOdometry implements OdometryThread.Odometry {
+        private Pose2d pose = new Pose2d();
+        private int lastPosition = -1;
+
+        @Override
+        public void updateOdometry() {
+            int position = encoder.getCurrentPosition();
+            pose = new Pose2d(pose.getX() + (position - lastPosition), pose.getY(), 0);
+            lastPosition = position;
+        }
+
+        @Override
+        public Pose2d getOdometryPose() {
+            return pose;
+        }
+
+        @Override
+        public Pose2d getOdometryVelocity() {
+            return new Pose2d();
+        }
+
+        @Override
+        public void setOdometryPose(Pose2d pose) {
+            this.pose = pose;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        encoder = mock(Encoder.class);
+        when(encoder.getCurrentPosition()).thenAnswer(invocation -> ticks.getAndIncrement());
+        odometryThread = new OdometryThread(new FakeOdometry());
+    }
+
+    @After
+    public void tearDown() {
+        odometryThread.stop();
+    }
+
+    private PoseSnapshot awaitSequence(long sequence) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        PoseSnapshot snapshot;
+        while ((snapshot = odometryThread.getLatest()).getSequence() < sequence) {
+            if (System.currentTimeMillis() > deadline) fail("Odometry stalled at sample " + snapshot.getSequence());
+            Thread.yield();
+        }
+        return snapshot;
+    }
+
+    @Test
+    public void ReadersSeeConsistentMonotonicSnapshots() throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    PoseSnapshot last = odometryThread.getLatest();
+                    while (last.getSequence() < SAMPLES) {
+                        PoseSnapshot snapshot = odometryThread.getLatest();
+                        assertThat(snapshot.getSequence()).isAtLeast(last.getSequence());
+                        assertThat(snapshot.getTimestamp()).isAtLeast(last.getTimestamp());
+                        assertThat(snapshot.getPose().getX()).isEqualTo((double) snapshot.getSequence());
+                        last = snapshot;
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        odometryThread.start(100); // 10 kHz, as fast as the executor will go
+        for (Thread reader : readers) {
+            reader.join(TIMEOUT_MS);
+            assertThat(reader.isAlive()).isFalse();
+        }
+        if (failure.get() != null) throw new AssertionError(failure.get());
+    }
+
+    @Test
+    public void SlowConsumerOnlySeesTheNewestSample() {
+        odometryThread.start(500);
+
+        PoseSnapshot first = awaitSequence(1);
+        // Stand in for a long main loop: the encoder keeps being sampled while nobody reads
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (ticks.get() < first.getSequence() + 20) {
+            if (System.currentTimeMillis() > deadline) fail("Odometry stalled");
+            Thread.yield();
+        }
+        PoseSnapshot next = odometryThread.getLatest();
+
+        // Nothing queued up behind the reader, the next read jumps straight to the latest sample.
+        // Every sample that read the encoder has published except possibly the one in progress.
+        assertThat(next.getSequence()).isAtLeast(first.getSequence() + 19);
+        assertThat(next.getPose().getX()).isEqualTo((double) next.getSequence());
+    }
+
+    @Test
+    public void PoseResetAppliedByOdometryThread() {
+        odometryThread.start(500);
+        awaitSequence(5);
+
+        odometryThread.setPose(new Pose2d(-1e9, 0, 0));
+        // A sample already in progress may still publish the old pose, the one after can't
+        long sequence = odometryThread.getLatest().getSequence();
+        Pose2d pose = awaitSequence(sequence + 2).getPose();
+        assertThat(pose.getX()).isLessThan(0.0);
+    }
+
+    @Test
+    public void PoseResetWhileStoppedIsPublishedImmediately() {
+        odometryThread.setPose(new Pose2d(3, 4, 0));
+        assertThat(odometryThread.getLatest().getPose().getX()).isEqualTo(3.0);
+        assertThat(odometryThread.getLatest().getPose().getY()).isEqualTo(4.0);
+    }
+}
@@ -0,0 +1,161 @@
+package hardware;
+
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotlib.hardware.AbstractSubsystem;
+import org.firstinspires.ftc.robotlib.hardware.SubsystemManager;
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.LogConfig;
+import org.firstinspires.ftc.robotlib.util.LogLevel;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SubsystemLoggingTest {
+    private static final int LOOPS = 100;
+
+    private HardwareMap hardwareMap;
+    private LoggedSubsystem subsystem;
+    private SubsystemManager subsystemManager;
+
+    /*
+     * Only touches hardware while logging
+     */
+    private static class LoggedSubsystem extends AbstractSubsystem {
+        private DcMotorEx motor;
+        private DataRecorder.DoubleChannel powerChannel;
+        private DataRecorder.IntChannel positionChannel;
+
+        LoggedSubsystem(HardwareMap hardwareMap) {
+            this(hardwareMap, "Logged", "motor");
+        }
+
+        LoggedSubsystem(HardwareMap hardwareMap, String name, String motorName) {
+            super(name);
+            motor = hardwareMap.get(DcMotorEx.class, motorName);
+        }
+
+        @Override
+        public void update() {
+
+        }
+
+        @Override
+        public void stop() {
+
+        }
+
+        @Override
+        public void registerChannels(DataRecorder recorder) {
+            powerChannel = recorder.addDouble("power");
+            positionChannel = recorder.addInt("position");
+        }
+
+        @Override
+        public void updateLogging() {
+            powerChannel.set(motor.getPower());
+            positionChannel.set(motor.getCurrentPosition());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        hardwareMap = mock(HardwareMap.class, Mockito.RETURNS_DEEP_STUBS);
+        subsystem = new LoggedSubsystem(hardwareMap);
+        subsystemManager = new SubsystemManager();
+        subsystemManager.add(subsystem);
+    }
+
+    private void runLoops() {
+        for (int i = 0; i < LOOPS; i++) {
+            subsystemManager.update();
+        }
+    }
+
+    @Test
+    public void DisabledLoggingMakesNoHardwareCalls() {
+        subsystem.setLogConfig(new LogConfig(LogLevel.OFF, 1));
+        DcMotorEx motor = hardwareMap.get(DcMotorEx.class, "motor");
+        Mockito.reset(motor);
+
+        runLoops();
+
+        Mockito.verifyZeroInteractions(motor);
+    }
+
+    @Test
+    public void SampledLoggingRunsOneInN() {
+        subsystem.setLogConfig(new LogConfig(LogLevel.SAMPLED, 10));
+        DcMotorEx motor = hardwareMap.get(DcMotorEx.class, "motor");
+        Mockito.reset(motor);
+
+        runLoops();
+
+        verify(motor, times(LOOPS / 10)).getPower();
+        verify(motor, times(LOOPS / 10)).getCurrentPosition();
+    }
+
+    @Test
+    public void FullLoggingRunsEveryLoop() {
+        subsystem.setLogConfig(new LogConfig(LogLevel.ALL, 1));
+        DcMotorEx motor = hardwareMap.get(DcMotorEx.class, "motor");
+        Mockito.reset(motor);
+
+        runLoops();
+
+        verify(motor, times(LOOPS)).getPower();
+        verify(motor, never()).setPower(Mockito.anyDouble());
+    }
+
+    @Test
+    public void SubsystemsWithoutTheirOwnConfigFollowTheDefault() {
+        LogConfig defaultConfig = LogConfig.DEFAULT;
+        try {
+            LogConfig.DEFAULT = new LogConfig(LogLevel.OFF, 1);
+            DcMotorEx motor = hardwareMap.get(DcMotorEx.class, "motor");
+            Mockito.reset(motor);
+
+            runLoops();
+            Mockito.verifyZeroInteractions(motor);
+
+            // Changing the shared config from the dashboard mutates it in place
+            LogConfig.DEFAULT.level = LogLevel.ALL;
+            runLoops();
+            verify(motor, times(LOOPS)).getPower();
+        } finally {
+            LogConfig.DEFAULT = defaultConfig;
+        }
+    }
+
+    @Test
+    public void SubsystemLevelsChangeIndependently() {
+        LogConfig config = new LogConfig(LogLevel.ALL, 1);
+        LogConfig otherConfig = new LogConfig(LogLevel.ALL, 1);
+        subsystem.setLogConfig(config);
+        LoggedSubsystem other = new LoggedSubsystem(hardwareMap, "Other", "other motor");
+        other.setLogConfig(otherConfig);
+        subsystemManager.add(other);
+        DcMotorEx motor = hardwareMap.get(DcMotorEx.class, "motor");
+        DcMotorEx otherMotor = hardwareMap.get(DcMotorEx.class, "other motor");
+        Mockito.reset(motor, otherMotor);
+
+        // Like editing one subsystem's LOG_CONFIG from the dashboard mid OpMode
+        config.level = LogLevel.OFF;
+        runLoops();
+
+        Mockito.verifyZeroInteractions(motor);
+        verify(otherMotor, times(LOOPS)).getPower();
+        assertThat(other.getLogLevel()).isEqualTo(LogLevel.ALL);
+        assertThat(LogConfig.DEFAULT.level).isEqualTo(LogLevel.ALL);
+    }
+}
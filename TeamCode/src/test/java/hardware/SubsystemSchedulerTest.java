@@ -0,0 +1,107 @@
+package hardware;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+
+import org.firstinspires.ftc.robotlib.hardware.Subsystem;
+import org.firstinspires.ftc.robotlib.hardware.SubsystemManager;
+import org.firstinspires.ftc.robotlib.hardware.SubsystemScheduler;
+import org.firstinspires.ftc.robotlib.util.LogLevel;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SubsystemSchedulerTest {
+    private static final int LOOPS = SubsystemScheduler.HORIZON;
+
+    private SubsystemManager subsystemManager;
+    private List<Subsystem> subsystems;
+    private int[] divisors = {1, 5, 2, 1, 2, 1, 1}; // localizer, vision, arm, intake, ring counter, shooter, drive
+
+    @Before
+    public void setUp() {
+        subsystemManager = new SubsystemManager();
+        subsystems = new ArrayList<>();
+        for (int i = 0; i < divisors.length; i++) {
+            Subsystem subsystem = mock(Subsystem.class);
+            when(subsystem.getName()).thenReturn("Subsystem " + i);
+            when(subsystem.getLogLevel()).thenReturn(LogLevel.ALL);
+            when(subsystem.getTelemetryData()).thenReturn(Collections.<String, Object>emptyMap());
+            subsystems.add(subsystem);
+            subsystemManager.add(subsystem, divisors[i]);
+        }
+    }
+
+    /*
+     * Checks after every loop that control ran once for every subsystem, and reporting at most once
+     */
+    private void runAndCheckEveryLoop() {
+        for (int loop = 1; loop <= LOOPS; loop++) {
+            subsystemManager.update();
+            for (int i = 0; i < subsystems.size(); i++) {
+                Subsystem subsystem = subsystems.get(i);
+                verify(subsystem, times(loop)).readSensorValues();
+                verify(subsystem, times(loop)).update();
+                verify(subsystem, times(loop)).updateMotorAndServoValues();
+                // Ceiling of loop / divisor, staggering only shifts which loop reports first
+                int reports = (loop + divisors[i] - 1) / divisors[i];
+                verify(subsystem, atMost(reports)).updateTelemetry();
+            }
+        }
+        for (int i = 0; i < subsystems.size(); i++) {
+            verify(subsystems.get(i), times(LOOPS / divisors[i])).updateTelemetry();
+            verify(subsystems.get(i), times(LOOPS / divisors[i])).updateLogging();
+        }
+    }
+
+    @Test
+    public void InterleavedOnlyDividesReporting() {
+        runAndCheckEveryLoop();
+    }
+
+    @Test
+    public void PhasedOnlyDividesReporting() {
+        subsystemManager.setExecutionMode(SubsystemManager.ExecutionMode.PHASED, Collections.<LynxModule>emptyList());
+        runAndCheckEveryLoop();
+    }
+
+    @Test
+    public void LowRateSubsystemsAreStaggered() {
+        SubsystemScheduler scheduler = new SubsystemScheduler();
+        for (int divisor : divisors) {
+            scheduler.add(divisor);
+        }
+
+        int max = 0, min = Integer.MAX_VALUE;
+        for (int t = 0; t < LOOPS; t++) {
+            int count = 0;
+            for (int i = 0; i < divisors.length; i++) {
+                if (scheduler.shouldRun(i)) count++;
+            }
+            max = Math.max(max, count);
+            min = Math.min(min, count);
+            scheduler.tick();
+        }
+        // 4 full rate subsystems, one of the two divisor 2 ones, and the divisor 5 one every 5th tick
+        assertThat(max).isEqualTo(6);
+        assertThat(min).isEqualTo(5);
+        assertThat(scheduler.getOffset(2)).isNotEqualTo(scheduler.getOffset(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RejectsZeroDivisor() {
+        new SubsystemScheduler().add(0);
+    }
+}
@@ -0,0 +1,98 @@
+package util;
+
+import org.firstinspires.ftc.robotlib.util.DataRecorder;
+import org.firstinspires.ftc.robotlib.util.DataRecorderReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class DataRecorderReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Every CSV line without the time column
+     */
+    private static List<String> convert(File file) throws IOException {
+        StringWriter csv = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(csv)) {
+            DataRecorderReader.convert(file, writer);
+        }
+        List<String> lines = new ArrayList<>();
+        for (String line : csv.toString().split("\\R")) {
+            lines.add(line.substring(line.indexOf(',') + 1));
+        }
+        return lines;
+    }
+
+    @Test
+    public void GroupsThatDidntLogAreBlank() throws IOException {
+        DataRecorder recorder = new DataRecorder();
+        int drive = recorder.beginGroup("Drive");
+        DataRecorder.DoubleChannel power = recorder.addDouble("power");
+        recorder.endGroup();
+        int shooter = recorder.beginGroup("Shooter");
+        DataRecorder.IntChannel rings = recorder.addInt("rings");
+        recorder.endGroup();
+        DataRecorder.BooleanChannel ready = recorder.addBoolean("ready");
+
+        File file = folder.newFile("Recording.bin");
+        recorder.start(file);
+        power.set(0.5);
+        rings.set(3);
+        ready.set(true);
+        recorder.markGroup(drive);
+        recorder.markGroup(shooter);
+        recorder.endRow();
+
+        // The shooter skipped this loop, its last value is still in the row
+        power.set(0.25);
+        recorder.markGroup(drive);
+        recorder.endRow();
+
+        recorder.endRow();
+        recorder.stop();
+
+        assertThat(convert(file)).containsExactly(
+                "power,rings,ready",
+                "0.5,3,true",
+                "0.25,,true",
+                ",,true").inOrder();
+    }
+
+    @Test
+    public void PartialLastRowIsDropped() throws IOException {
+        DataRecorder recorder = new DataRecorder();
+        int group = recorder.beginGroup("Drive");
+        DataRecorder.DoubleChannel x = recorder.addDouble("x");
+        DataRecorder.DoubleChannel y = recorder.addDouble("y");
+        recorder.endGroup();
+
+        File file = folder.newFile("Recording.bin");
+        recorder.start(file);
+        for (int i = 0; i < 3; i++) {
+            x.set(i);
+            y.set(-i);
+            recorder.markGroup(group);
+            recorder.endRow();
+        }
+        recorder.stop();
+
+        // Killed partway through writing the last row
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        assertThat(convert(file)).containsExactly("x,y", "0.0,0.0", "1.0,-1.0").inOrder();
+    }
+}
@@ -0,0 +1,67 @@
+package util;
+
+import org.firstinspires.ftc.robotlib.util.TelemetryData;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class TelemetryDataTest {
+    private static final int LOOPS = 10000;
+
+    private enum Mode {
+        IDLE,
+        BUSY
+    }
+
+    private TelemetryData telemetry;
+    private TelemetryData.DoubleEntry power;
+    private TelemetryData.IntEntry rings;
+    private TelemetryData.BooleanEntry ready;
+    private TelemetryData.ObjectEntry<Mode> mode;
+
+    @Before
+    public void setUp() {
+        telemetry = new TelemetryData("Shooter");
+        power = telemetry.addDouble("Power");
+        rings = telemetry.addInt("Rings");
+        ready = telemetry.addBoolean("Ready");
+        mode = telemetry.addObject("Mode");
+    }
+
+    private void loop(int i) {
+        power.set(i * .001);
+        rings.set(i % 4);
+        ready.set(i % 2 == 0);
+        mode.set(i % 2 == 0 ? Mode.IDLE : Mode.BUSY);
+        telemetry.getData();
+    }
+
+    @Test
+    public void KeysArePrefixed() {
+        power.set(.5);
+        Map<String, Object> data = telemetry.getData();
+        assertThat(data).containsKey("Shooter: Power");
+        assertThat(data.get("Shooter: Power").toString()).isEqualTo("0.5");
+    }
+
+    @Test
+    public void SteadyStateAllocatesNothing() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Warm up so the JIT and any lazy initialization are out of the way
+        for (int i = 0; i < LOOPS; i++) loop(i);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < LOOPS; i++) loop(i);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        // Leave room for the measurement itself, but well under one byte per loop
+        assertThat(allocated).isLessThan((long) LOOPS);
+    }
+}
@@ -0,0 +1,68 @@
+package vision;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.firstinspires.ftc.robotlib.vision.CameraCalibration;
+import org.firstinspires.ftc.robotlib.vision.CameraExtrinsicsFit;
+import org.firstinspires.ftc.robotlib.vision.CameraModel;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CameraExtrinsicsFitTest {
+    // The phone camera at the stream size, what Vision falls back to without a calibration
+    private static final CameraCalibration PINHOLE = CameraCalibration.fromFov(320, 240, Math.toRadians(27.3), Math.toRadians(21));
+
+    private static final Vector3D CAMERA_LOCATION = new Vector3D(6, 2, 8); // in
+    private static final double CAMERA_PITCH = Math.toRadians(20);
+    private static final double CAMERA_YAW = Math.toRadians(5);
+    private static final double RING_HEIGHT = 0.375; // center of a ring lying on the floor
+
+    /**
+     * Rings on a grid in front of the robot, seen where the real camera would see them
+     */
+    private static CameraExtrinsicsFit seenRings(double pixelNoise) {
+        CameraModel camera = new CameraModel(PINHOLE);
+        camera.setExtrinsics(CAMERA_LOCATION, CAMERA_PITCH, CAMERA_YAW);
+        CameraExtrinsicsFit fit = new CameraExtrinsicsFit(PINHOLE);
+        int i = 0;
+        for (double x = 20; x <= 40; x += 4) {
+            for (double y = -4; y <= 8; y += 4, i++) {
+                Vector3D ring = new Vector3D(x, y, RING_HEIGHT);
+                double[] pixel = camera.project(ring);
+                if (pixel == null || pixel[0] < 0 || pixel[1] < 0 || pixel[0] > 319 || pixel[1] > 239) continue;
+                // Alternating offsets instead of random ones so the test is repeatable
+                double noise = i % 2 == 0 ? pixelNoise : -pixelNoise;
+                fit.add(pixel[0] + noise, pixel[1] - noise, ring);
+            }
+        }
+        return fit;
+    }
+
+    @Test
+    public void RecoversTheCameraPose() {
+        CameraExtrinsicsFit fit = seenRings(0);
+        assertThat(fit.size()).isAtLeast(6);
+
+        // Starting from the untuned RobotMap
+        CameraExtrinsicsFit.Result result = fit.fit(new Vector3D(6, 2, 0), 0, 0, 0);
+        assertThat(result.pitch).isWithin(Math.toRadians(0.01)).of(CAMERA_PITCH);
+        assertThat(result.yaw).isWithin(Math.toRadians(0.01)).of(CAMERA_YAW);
+        assertThat(result.height).isWithin(0.01).of(CAMERA_LOCATION.getZ());
+        assertThat(result.rmsError).isLessThan(0.01);
+    }
+
+    @Test
+    public void ToleratesDetectionNoise() {
+        CameraExtrinsicsFit.Result result = seenRings(1).fit(new Vector3D(6, 2, 0), 0, 0, 0);
+        assertThat(result.pitch).isWithin(Math.toRadians(1)).of(CAMERA_PITCH);
+        assertThat(result.yaw).isWithin(Math.toRadians(1)).of(CAMERA_YAW);
+        assertThat(result.height).isWithin(0.5).of(CAMERA_LOCATION.getZ());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void NeedsTwoPoints() {
+        CameraExtrinsicsFit fit = new CameraExtrinsicsFit(PINHOLE);
+        fit.add(160, 120, new Vector3D(30, 0, RING_HEIGHT));
+        fit.fit(new Vector3D(6, 2, 0), 0, 0, 0);
+    }
+}
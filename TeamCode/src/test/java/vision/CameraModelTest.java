@@ -0,0 +1,124 @@
+package vision;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.firstinspires.ftc.robotlib.vision.CameraCalibration;
+import org.firstinspires.ftc.robotlib.vision.CameraModel;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CameraModelTest {
+    // Logitech C920 at 640x480 from teamwebcamcalibrations.xml
+    private static final CameraCalibration C920 = CameraCalibration.parse(
+            "640 480", "622.001f, 622.001f", "319.803f, 241.251f", "0.1208, -0.261599, 0, 0, 0.10308, 0, 0, 0");
+
+    private static final Vector3D CAMERA_LOCATION = new Vector3D(6, 2, 8); // in
+    private static final double CAMERA_PITCH = Math.toRadians(20);
+    private static final double CAMERA_YAW = Math.toRadians(10);
+
+    private static final int BENCHMARK_ITERATIONS = 1000000;
+
+    private static CameraModel placedModel(CameraCalibration calibration) {
+        CameraModel model = new CameraModel(calibration);
+        model.setExtrinsics(CAMERA_LOCATION, CAMERA_PITCH, CAMERA_YAW);
+        return model;
+    }
+
+    @Test
+    public void ParsesTheCalibrationFileFormat() {
+        CameraCalibration calibration = CameraCalibration.parse(
+                "800, 448", "578.272f , 578.272f", "402.145f , 221.506f", "0.12175, -0.251652 , 0, 0, 0.112142");
+        assertThat(calibration.getWidth()).isEqualTo(800);
+        assertThat(calibration.getHeight()).isEqualTo(448);
+        assertThat(calibration.getFx()).isWithin(1e-9).of(578.272);
+        assertThat(calibration.getCy()).isWithin(1e-9).of(221.506);
+        assertThat(calibration.getDistortion()).usingTolerance(1e-9)
+                .containsExactly(0.12175, -0.251652, 0.0, 0.0, 0.112142, 0.0, 0.0, 0.0).inOrder();
+    }
+
+    @Test
+    public void ScalesToResolutionsWithTheSameAspectRatio() {
+        CameraCalibration scaled = C920.scaledTo(320, 240);
+        assertThat(scaled.getFx()).isWithin(1e-9).of(311.0005);
+        assertThat(scaled.getCx()).isWithin(1e-9).of(159.9015);
+        assertThat(C920.hasAspectRatio(320, 240)).isTrue();
+        assertThat(C920.hasAspectRatio(640, 360)).isFalse();
+    }
+
+    @Test
+    public void PinholeCenterRayHitsTheGroundBelowThePitch() {
+        CameraModel model = new CameraModel(CameraCalibration.fromFov(321, 241, Math.toRadians(60), Math.toRadians(45)));
+        model.setExtrinsics(new Vector3D(0, 0, 10), Math.toRadians(30), 0);
+
+        Vector3D ground = model.projectToPlane(160, 120, 0);
+        assertThat(ground.getX()).isWithin(1e-4).of(10 / Math.tan(Math.toRadians(30)));
+        assertThat(ground.getY()).isWithin(1e-4).of(0);
+
+        // Left of center is +y
+        assertThat(model.projectToPlane(0, 120, 0).getY()).isGreaterThan(0);
+    }
+
+    @Test
+    public void GroundPointsRoundTripThroughDistortion() {
+        CameraModel model = placedModel(C920);
+        int checked = 0;
+        for (double x = 12; x <= 120; x += 6) {
+            for (double y = -40; y <= 40; y += 4) {
+                Vector3D point = new Vector3D(x, y, 0.375);
+                double[] pixel = model.project(point);
+                if (pixel == null || pixel[0] < 0 || pixel[1] < 0 || pixel[0] > 639 || pixel[1] > 479) continue;
+
+                Vector3D projected = model.projectToPlane(pixel[0], pixel[1], point.getZ());
+                // Bilinear interpolation of the table, grows with distance
+                assertThat(projected.distance(point)).isLessThan(0.001 * x);
+                checked++;
+            }
+        }
+        assertThat(checked).isGreaterThan(50);
+    }
+
+    @Test
+    public void PixelsAboveTheHorizonDontProject() {
+        CameraModel model = placedModel(C920);
+        assertThat(model.projectToPlane(320, 0, 0)).isNull();
+        assertThat(model.projectToPlane(-1, 240, 0)).isNull();
+        assertThat(model.projectToPlane(320, 480, 0)).isNull();
+    }
+
+    @Test
+    public void CameraFrameIsForwardLeftUp() {
+        CameraModel model = placedModel(C920);
+        Vector3D ahead = CAMERA_LOCATION.add(new Vector3D(
+                Math.cos(CAMERA_YAW) * Math.cos(CAMERA_PITCH),
+                Math.sin(CAMERA_YAW) * Math.cos(CAMERA_PITCH),
+                -Math.sin(CAMERA_PITCH)));
+        Vector3D camera = model.toCameraFrame(ahead);
+        assertThat(camera.getX()).isWithin(1e-9).of(1);
+        assertThat(camera.getY()).isWithin(1e-9).of(0);
+        assertThat(camera.getZ()).isWithin(1e-9).of(0);
+    }
+
+    /*
+     * Prints how long building the table and projecting one detection take
+     */
+    @Test
+    public void ProjectionCost() {
+        long start = System.nanoTime();
+        CameraModel model = placedModel(C920);
+        long buildNanos = System.nanoTime() - start;
+
+        double sink = 0;
+        for (int pass = 0; pass < 2; pass++) { // first pass warms up the JIT
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                Vector3D ground = model.projectToPlane(100 + (i % 400) * 1.1, 300 + (i % 150) * 0.9, 0.375);
+                if (ground != null) sink += ground.getX();
+            }
+        }
+        long projectNanos = System.nanoTime() - start;
+
+        System.out.printf("Table for %dx%d: %.1f ms%n", C920.getWidth(), C920.getHeight(), buildNanos / 1e6);
+        System.out.printf("Per detection: %.1f ns%n", (double) projectNanos / BENCHMARK_ITERATIONS);
+        assertThat(sink).isGreaterThan(0.0);
+    }
+}
@@ -0,0 +1,91 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.DropOldestQueue;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class DropOldestQueueTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    @Test
+    public void FullQueueHandsBackTheOldest() {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(2);
+        assertThat(queue.offer(1)).isNull();
+        assertThat(queue.offer(2)).isNull();
+        assertThat(queue.getDropped()).isEqualTo(0);
+
+        assertThat(queue.offer(3)).isEqualTo(1);
+        assertThat(queue.offer(4)).isEqualTo(2);
+        assertThat(queue.getDropped()).isEqualTo(2);
+        assertThat(queue.size()).isEqualTo(2);
+
+        // The newest items survive, still in order
+        assertThat(queue.poll()).isEqualTo(3);
+        assertThat(queue.poll()).isEqualTo(4);
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    public void SingleSlotAlwaysHoldsTheNewest() {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(1);
+        for (int i = 0; i < 10; i++) {
+            Integer evicted = queue.offer(i);
+            if (i == 0) {
+                assertThat(evicted).isNull();
+            } else {
+                assertThat(evicted).isEqualTo(i - 1);
+            }
+        }
+        assertThat(queue.getDropped()).isEqualTo(9);
+        assertThat(queue.poll()).isEqualTo(9);
+    }
+
+    @Test
+    public void TakeWaitsForAnOffer() throws InterruptedException {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(1);
+        AtomicReference<Integer> taken = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+            } catch (InterruptedException ignored) {
+
+            }
+        });
+        consumer.start();
+
+        // Blocked in wait() until something is offered
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (consumer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertThat(consumer.getState()).isEqualTo(Thread.State.WAITING);
+        assertThat(taken.get()).isNull();
+
+        queue.offer(7);
+        consumer.join(TIMEOUT_MS);
+        assertThat(consumer.isAlive()).isFalse();
+        assertThat(taken.get()).isEqualTo(7);
+        assertThat(queue.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void TakeIsInterruptible() throws InterruptedException {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(1);
+        AtomicReference<Boolean> interrupted = new AtomicReference<>(false);
+        Thread consumer = new Thread(() -> {
+            try {
+                queue.take();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        consumer.start();
+        consumer.interrupt();
+        consumer.join(TIMEOUT_MS);
+        assertThat(consumer.isAlive()).isFalse();
+        assertThat(interrupted.get()).isTrue();
+    }
+}
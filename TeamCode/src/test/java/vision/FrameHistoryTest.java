@@ -0,0 +1,137 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.FrameHistory;
+import org.firstinspires.ftc.robotlib.vision.FrameReplay;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Records small frames whose pixels all equal their timestamp and reads back what dump() writes.
+ * Skipped without desktop OpenCV.
+ */
+public class FrameHistoryTest {
+    private static final long TIMEOUT_MS = 5000;
+    private static final String HEADER = "rings";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        VisionTestUtil.assumeOpenCv();
+    }
+
+    private static FrameHistory<Integer> history(int capacity) {
+        return new FrameHistory<>(capacity, HEADER, rings -> String.valueOf(rings.get(0)));
+    }
+
+    private static Mat frame(long timestamp) {
+        return new Mat(4, 4, CvType.CV_8UC4, new Scalar(timestamp, timestamp, timestamp, 255));
+    }
+
+    private static void record(FrameHistory<Integer> history, long... timestamps) {
+        Mat frame = new Mat();
+        for (long timestamp : timestamps) {
+            // Like the camera, the same buffer is reused for every frame
+            frame(timestamp).copyTo(frame);
+            history.record(frame, timestamp);
+        }
+    }
+
+    private List<String> dump(FrameHistory<Integer> history) throws Exception {
+        Future<?> dumped = history.dump("dump", folder.getRoot());
+        assertThat(dumped).isNotNull();
+        dumped.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        return Files.readAllLines(new File(folder.getRoot(), "dump.csv").toPath());
+    }
+
+    /**
+     * The first pixel of each dumped frame, which is the timestamp it was recorded with
+     */
+    private List<Integer> dumpedFrames() throws Exception {
+        List<Mat> frames = FrameReplay.readSequence(new File(folder.getRoot(), "dump" + FrameReplay.SEQUENCE_EXTENSION));
+        Integer[] values = new Integer[frames.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) frames.get(i).get(0, 0)[0];
+        }
+        return Arrays.asList(values);
+    }
+
+    @Test
+    public void RecordWrapsAroundKeepingTheNewest() throws Exception {
+        FrameHistory<Integer> history = history(3);
+        record(history, 1, 2);
+        assertThat(history.size()).isEqualTo(2);
+        record(history, 3, 4, 5);
+        assertThat(history.size()).isEqualTo(3);
+
+        List<String> csv = dump(history);
+        assertThat(dumpedFrames()).containsExactly(3, 4, 5).inOrder();
+        assertThat(csv).containsExactly("frame,timestamp (ns)," + HEADER, "0,3,", "1,4,", "2,5,").inOrder();
+    }
+
+    @Test
+    public void ResultsMatchTheirFrameAfterEviction() throws Exception {
+        FrameHistory<Integer> history = history(2);
+        record(history, 1, 2, 3);
+        // Frame 1 has been overwritten, its late results mustn't land on another frame
+        history.setResults(1, Collections.singletonList(10));
+        history.setResults(3, Collections.singletonList(30));
+
+        List<String> csv = dump(history);
+        assertThat(dumpedFrames()).containsExactly(2, 3).inOrder();
+        assertThat(csv).containsExactly("frame,timestamp (ns)," + HEADER, "0,2,", "1,3,30").inOrder();
+    }
+
+    @Test
+    public void FramesArentRecordedWhileDumping() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // The formatter runs on the dump thread, so it can hold the dump open
+        FrameHistory<Integer> history = new FrameHistory<>(2, HEADER, rings -> {
+            writing.countDown();
+            try {
+                release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return String.valueOf(rings.get(0));
+        });
+        record(history, 1, 2);
+        history.setResults(2, Collections.singletonList(20));
+
+        Future<?> dumped = history.dump("dump", folder.getRoot());
+        assertThat(writing.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(history.isDumping()).isTrue();
+        // Recording now would overwrite the Mats being written
+        record(history, 3, 4);
+        assertThat(history.dump("dump", folder.getRoot())).isNull();
+        release.countDown();
+        dumped.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(history.isDumping()).isFalse();
+        assertThat(dumpedFrames()).containsExactly(1, 2).inOrder();
+
+        // Dropped frames are gone, recording picks up again after the dump
+        record(history, 5);
+        List<String> csv = dump(history);
+        assertThat(dumpedFrames()).containsExactly(2, 5).inOrder();
+        assertThat(csv).containsExactly("frame,timestamp (ns)," + HEADER, "0,2,20", "1,5,").inOrder();
+    }
+}
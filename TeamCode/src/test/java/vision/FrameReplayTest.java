@@ -0,0 +1,84 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.FrameReplay;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Frame sequences have to come back bit for bit, or replayed results won't match the robot's.
+ * Skipped without desktop OpenCV.
+ */
+public class FrameReplayTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        VisionTestUtil.assumeOpenCv();
+    }
+
+    private static Mat random(int rows, int cols, int type) {
+        Mat mat = new Mat(rows, cols, type);
+        Core.randu(mat, 0, 256);
+        return mat;
+    }
+
+    private static byte[] pixels(Mat mat) {
+        Mat continuous = mat.isContinuous() ? mat : mat.clone();
+        byte[] data = new byte[(int) (continuous.total() * continuous.elemSize())];
+        continuous.get(0, 0, data);
+        return data;
+    }
+
+    @Test
+    public void SequenceRoundTrips() throws Exception {
+        Mat camera = random(240, 320, CvType.CV_8UC4);
+        List<Mat> frames = Arrays.asList(
+                camera,
+                random(96, 320, CvType.CV_8UC4),
+                random(10, 20, CvType.CV_8UC1), // e.g. a mask
+                camera.submat(new Rect(10, 20, 30, 40))); // not continuous
+        File file = new File(folder.getRoot(), "frames" + FrameReplay.SEQUENCE_EXTENSION);
+
+        FrameReplay.writeSequence(file, frames);
+        List<Mat> read = FrameReplay.readSequence(file);
+
+        assertThat(read).hasSize(frames.size());
+        for (int i = 0; i < frames.size(); i++) {
+            assertThat(read.get(i).size()).isEqualTo(frames.get(i).size());
+            assertThat(read.get(i).type()).isEqualTo(frames.get(i).type());
+            assertThat(pixels(read.get(i))).isEqualTo(pixels(frames.get(i)));
+        }
+        // loadFrames() picks the format from the extension
+        assertThat(FrameReplay.loadFrames(file)).hasSize(frames.size());
+    }
+
+    @Test
+    public void EmptySequenceRoundTrips() throws Exception {
+        File file = new File(folder.getRoot(), "empty" + FrameReplay.SEQUENCE_EXTENSION);
+        FrameReplay.writeSequence(file, Collections.emptyList());
+        assertThat(FrameReplay.readSequence(file)).isEmpty();
+    }
+
+    @Test(expected = IOException.class)
+    public void RejectsFilesThatArentSequences() throws Exception {
+        File file = folder.newFile("image" + FrameReplay.SEQUENCE_EXTENSION);
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        FrameReplay.readSequence(file);
+    }
+}
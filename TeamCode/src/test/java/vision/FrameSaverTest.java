@@ -0,0 +1,78 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.FrameReplay;
+import org.firstinspires.ftc.robotlib.vision.FrameSaver;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Saves a frame the way Vision.saveOutput() does and loads it back like a replay would. Skipped
+ * without desktop OpenCV.
+ */
+public class FrameSaverTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Mat frame;
+
+    @Before
+    public void setUp() {
+        VisionTestUtil.assumeOpenCv();
+
+        // Opaque RGBA like the camera, PNGs don't keep alpha
+        frame = new Mat(240, 320, CvType.CV_8UC4);
+        Core.randu(frame, new Scalar(0, 0, 0, 255), new Scalar(256, 256, 256, 256));
+    }
+
+    private static byte[] pixels(Mat mat) {
+        byte[] data = new byte[(int) (mat.total() * mat.elemSize())];
+        mat.get(0, 0, data);
+        return data;
+    }
+
+    @Test
+    public void SavedFrameLoadsBackUnchanged() throws Exception {
+        Mat expected = frame.clone();
+        File file = new File(folder.getRoot(), "samples/IMG_0.png");
+
+        Future<File> saved = FrameSaver.save(frame, file);
+        // The camera reuses its buffer for the next frame as soon as processFrame returns
+        frame.setTo(new Scalar(0, 0, 0, 0));
+        assertThat(saved.get(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isEqualTo(file);
+
+        List<Mat> loaded = FrameReplay.loadFrames(file);
+        assertThat(loaded).hasSize(1);
+        Mat actual = loaded.get(0);
+        assertThat(actual.size()).isEqualTo(expected.size());
+        assertThat(actual.type()).isEqualTo(expected.type());
+        assertThat(pixels(actual)).isEqualTo(pixels(expected));
+    }
+
+    @Test
+    public void SavedFramesReplayInNameOrder() throws Exception {
+        Mat second = new Mat(frame.size(), frame.type(), new Scalar(10, 20, 30, 255));
+        FrameSaver.save(frame, new File(folder.getRoot(), "IMG_1.png"));
+        FrameSaver.save(second, new File(folder.getRoot(), "IMG_2.png")).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        // Saves run one at a time in order, so the first is done once the second is
+        List<Mat> loaded = FrameReplay.loadFrames(folder.getRoot());
+        assertThat(loaded).hasSize(2);
+        assertThat(pixels(loaded.get(0))).isEqualTo(pixels(frame));
+        assertThat(pixels(loaded.get(1))).isEqualTo(pixels(second));
+    }
+}
@@ -0,0 +1,83 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.LabelRegions;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class LabelRegionsTest {
+    private final LabelRegions regions = new LabelRegions();
+
+    /*
+     * '.' is background, digits are labels
+     */
+    private void scan(String... rows) {
+        int height = rows.length, width = rows[0].length();
+        int[] labels = new int[width * height];
+        int labelCount = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                char c = rows[y].charAt(x);
+                labels[y * width + x] = c == '.' ? 0 : c - '0';
+                labelCount = Math.max(labelCount, labels[y * width + x]);
+            }
+        }
+        regions.scan(labels, width, height, labelCount);
+    }
+
+    private int[] contour(int label) {
+        return Arrays.copyOf(regions.getContour(label), regions.getContourLength(label) * 2);
+    }
+
+    @Test
+    public void MeasuresEveryLabelInOnePass() {
+        scan("11.22",
+             "11.22",
+             "..3..",
+             "3333.");
+
+        assertThat(regions.getArea(1)).isEqualTo(4);
+        assertThat(contour(1)).asList().containsExactly(0, 0, 1, 0, 1, 1, 0, 1).inOrder();
+        assertThat(contour(2)).asList().containsExactly(3, 0, 4, 0, 4, 1, 3, 1).inOrder();
+
+        assertThat(regions.getArea(3)).isEqualTo(5);
+        assertThat(regions.getMinX(3)).isEqualTo(0);
+        assertThat(regions.getMinY(3)).isEqualTo(2);
+        assertThat(regions.getMaxX(3)).isEqualTo(3);
+        assertThat(regions.getMaxY(3)).isEqualTo(3);
+    }
+
+    @Test
+    public void StraightRunsOnlyKeepCorners() {
+        scan("111",
+             "111",
+             "111");
+        assertThat(contour(1)).asList().containsExactly(0, 0, 2, 0, 2, 2, 0, 2).inOrder();
+    }
+
+    @Test
+    public void TracesThinAndHollowShapes() {
+        scan(".1..",
+             ".1..",
+             "111.");
+        assertThat(contour(1)).asList().containsExactly(1, 0, 1, 1, 2, 2, 0, 2, 1, 1).inOrder();
+
+        scan(".11.",
+             "1..1",
+             ".11.");
+        assertThat(contour(1)).asList().containsExactly(1, 0, 2, 0, 3, 1, 2, 2, 1, 2, 0, 1).inOrder();
+
+        scan("....",
+             "..1.");
+        assertThat(contour(1)).asList().containsExactly(2, 1).inOrder();
+    }
+
+    @Test
+    public void MissingLabelsHaveNoContour() {
+        scan("1.3");
+        assertThat(regions.getArea(2)).isEqualTo(0);
+        assertThat(regions.getContourLength(2)).isEqualTo(0);
+    }
+}
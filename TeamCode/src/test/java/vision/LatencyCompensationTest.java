@@ -0,0 +1,85 @@
+package vision;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.geometry.Vector2d;
+import com.acmerobotics.roadrunner.util.Angle;
+
+import org.firstinspires.ftc.robotlib.hardware.odometry.PoseHistory;
+import org.firstinspires.ftc.robotlib.util.MathUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.firstinspires.ftc.teamcode.hardware.subsystems.drive.DriveConstants.MAX_ANG_VEL;
+
+/**
+ * Robot spins at MAX_ANG_VEL while driving forward and sees a ring in a frame that is only
+ * processed some time later, like the camera pipeline
+ */
+public class LatencyCompensationTest {
+    private static final long ODOMETRY_PERIOD = 5000000; // ns
+    private static final long LATENCY = 100000000; // ns, exposure to the control loop using the frame
+    private static final double SPEED = 20; // in / s
+
+    private static final Vector2d RING = new Vector2d(48, 12);
+
+    private PoseHistory poseHistory;
+
+    private static Pose2d truePose(long time) {
+        double t = time / 1e9;
+        return new Pose2d(SPEED * t, 0, Angle.norm(MAX_ANG_VEL * t));
+    }
+
+    @Before
+    public void setUp() {
+        poseHistory = new PoseHistory();
+        for (long time = 0; time <= 1000000000L; time += ODOMETRY_PERIOD) {
+            poseHistory.add(time, truePose(time));
+        }
+    }
+
+    private double error(long exposure, boolean compensated) {
+        // What the camera measured, relative to the robot at exposure
+        Vector2d local = MathUtil.globalToLocal(RING, truePose(exposure));
+
+        Pose2d pose = compensated ? poseHistory.getPose(exposure) : truePose(exposure + LATENCY);
+        return MathUtil.localToGlobal(local, pose).minus(RING).norm();
+    }
+
+    @Test
+    public void CompensationRemovesRotationError() {
+        double worstUncompensated = 0, worstCompensated = 0;
+        // Exposures fall between odometry samples
+        for (long exposure = 100000000; exposure < 900000000; exposure += 12345678) {
+            worstUncompensated = Math.max(worstUncompensated, error(exposure, false));
+            worstCompensated = Math.max(worstCompensated, error(exposure, true));
+        }
+        System.out.printf("Ring position error: %.2f in uncompensated, %.4f in compensated%n",
+                worstUncompensated, worstCompensated);
+
+        assertThat(worstUncompensated).isGreaterThan(5.0);
+        assertThat(worstCompensated).isLessThan(0.1);
+    }
+
+    @Test
+    public void HeadingInterpolatesAcrossWrap() {
+        PoseHistory history = new PoseHistory();
+        history.add(0, new Pose2d(0, 0, Math.toRadians(350)));
+        history.add(10, new Pose2d(0, 0, Math.toRadians(10)));
+
+        double heading = history.getPose(5).getHeading();
+        assertThat(Math.abs(Angle.normDelta(heading))).isLessThan(1e-9);
+    }
+
+    @Test
+    public void OldestSamplesAreOverwritten() {
+        PoseHistory history = new PoseHistory(4);
+        for (int i = 0; i < 10; i++) {
+            history.add(i, new Pose2d(i, 0, 0));
+        }
+        assertThat(history.size()).isEqualTo(4);
+        // Clamped to the oldest sample still kept
+        assertThat(history.getPose(0).getX()).isEqualTo(6.0);
+        assertThat(history.getPose(7).getX()).isEqualTo(7.0);
+    }
+}
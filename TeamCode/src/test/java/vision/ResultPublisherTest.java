@@ -0,0 +1,93 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.ResultPublisher;
+import org.firstinspires.ftc.robotlib.vision.VisionSnapshot;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ResultPublisherTest {
+    private static final long CAMERA_PERIOD_MS = 33; // 30 fps
+    private static final int FRAMES = 60;
+    private static final int READERS = 3;
+
+    private final ResultPublisher<Integer> publisher = new ResultPublisher<>(Integer::compare);
+
+    /*
+     * Every result in a frame is frame * 100 + i, so a reader can tell if a snapshot mixes frames
+     */
+    private List<Integer> frameResults(int frame, Random random) {
+        List<Integer> results = new ArrayList<>();
+        int count = 1 + random.nextInt(20);
+        for (int i = 0; i < count; i++) {
+            results.add(frame * 100 + random.nextInt(100));
+        }
+        return results;
+    }
+
+    @Test
+    public void ReadersNeverSeeTornOrUnsortedResults() throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread camera = new Thread(() -> {
+            Random random = new Random(0);
+            try {
+                for (int frame = 1; frame <= FRAMES; frame++) {
+                    List<Integer> results = frameResults(frame, random);
+                    publisher.publish(results, System.nanoTime());
+                    // Camera keeps reusing its own list, which must not leak into the snapshot
+                    results.clear();
+                    Thread.sleep(CAMERA_PERIOD_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            readers.add(new Thread(() -> {
+                long lastSequence = 0;
+                long lastTimestamp = Long.MIN_VALUE;
+                try {
+                    while (lastSequence < FRAMES && failure.get() == null) {
+                        VisionSnapshot<Integer> snapshot = publisher.getLatest();
+                        assertThat(snapshot.getSequence()).isAtLeast(lastSequence);
+                        assertThat(snapshot.getTimestamp()).isAtLeast(lastTimestamp);
+                        lastSequence = snapshot.getSequence();
+                        lastTimestamp = snapshot.getTimestamp();
+
+                        List<Integer> results = snapshot.getResults();
+                        assertThat(results).isInOrder();
+                        for (int result : results) {
+                            assertThat((long) result / 100).isEqualTo(snapshot.getSequence());
+                        }
+                        if (snapshot.getSequence() > 0) assertThat(results).isNotEmpty();
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }));
+        }
+
+        camera.start();
+        for (Thread reader : readers) reader.start();
+        camera.join();
+        for (Thread reader : readers) reader.join(1000);
+
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        assertThat(publisher.getLatest().getSequence()).isEqualTo((long) FRAMES);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void SnapshotIsImmutable() {
+        List<Integer> results = new ArrayList<>();
+        results.add(2);
+        results.add(1);
+        publisher.publish(results, System.nanoTime()).getResults().add(3);
+    }
+}
@@ -0,0 +1,300 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.FrameReplay;
+import org.firstinspires.ftc.robotlib.vision.MatOperator;
+import org.firstinspires.ftc.robotlib.vision.VisionScorer;
+import org.firstinspires.ftc.teamcode.vision.RingData;
+import org.firstinspires.ftc.teamcode.vision.RingPipeline;
+import org.firstinspires.ftc.teamcode.vision.operators.SegmentationOperator;
+import org.firstinspires.ftc.teamcode.vision.operators.YCrCbLookupFilter;
+import org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter;
+import org.firstinspires.ftc.teamcode.vision.scorers.AreaScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.AspectRatioScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.ExtentScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.SolidityScorer;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs RingPipeline over a folder of saved frames and prints per frame latency and allocation.
+ * Needs a desktop OpenCV build on java.library.path and the frames folder passed in, e.g.
+ * <pre>
+ * -Djava.library.path=/usr/lib/jni -Dvision.frames=/path/to/samples
+ * </pre>
+ * Skipped when either is missing. Only Java heap allocation is counted, not native Mat memory.
+ */
+public class RingPipelineBenchmark {
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    private List<Mat> frames;
+
+    @Before
+    public void setUp() {
+        VisionTestUtil.assumeFramesSource();
+        VisionTestUtil.assumeOpenCv();
+        frames = VisionTestUtil.assumeFrames();
+    }
+
+    @Test
+    public void ProcessFrame() {
+        for (RingPipeline.Viewport viewport : RingPipeline.Viewport.values()) {
+            RingPipeline pipeline = new RingPipeline();
+            pipeline.setViewport(viewport);
+            run(pipeline, viewport.toString());
+        }
+
+        // Per frame time saved against ANNOTATED when nobody is watching
+        RingPipeline headless = new RingPipeline();
+        headless.setHeadless(true);
+        run(headless, "HEADLESS");
+    }
+
+    @Test
+    public void Thresholding() {
+        run(new YCrCbRangeFilter(), "inRange");
+        run(new YCrCbLookupFilter(), "lookup");
+    }
+
+    /*
+     * Ring colored blocks scattered over every frame, so most contours are background noise that
+     * should be rejected by the cheap features
+     */
+    @Test
+    public void ContourScoringWithNoise() {
+        RingPipeline pipeline = new RingPipeline();
+        Mat input = new Mat();
+        Mat speckles = new Mat();
+        Scalar ringColor = new Scalar(255, 140, 0, 255);
+
+        double scoringTime = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            frames.get(i % frames.size()).copyTo(input);
+
+            speckles.create(input.rows() / 4, input.cols() / 4, CvType.CV_8UC1);
+            Core.randu(speckles, 0, 256);
+            Imgproc.threshold(speckles, speckles, 240, 255, Imgproc.THRESH_BINARY);
+            Imgproc.resize(speckles, speckles, input.size(), 0, 0, Imgproc.INTER_NEAREST);
+            input.setTo(ringColor, speckles);
+
+            pipeline.processFrame(input);
+            if (i >= WARMUP_ITERATIONS) scoringTime += pipeline.getScoringTime();
+        }
+        input.release();
+        speckles.release();
+        System.out.printf("Contour scoring with noise: mean %.3f ms%n", scoringTime / MEASURED_ITERATIONS);
+    }
+
+    /*
+     * Time per contour of each scorer on its own, with a fresh RingData each call so it pays for
+     * every feature it reads. Relative to the cheapest, these are what getCost() should declare.
+     */
+    @Test
+    public void ScorerCost() {
+        Size size = frames.get(0).size();
+        Scalar ringColor = new Scalar(255, 140, 0, 255);
+        Random random = new Random(0);
+
+        Mat masked = Mat.zeros(size, CvType.CV_8UC4);
+        for (int i = 0; i < 50; i++) {
+            Point center = new Point(random.nextDouble() * size.width, random.nextDouble() * size.height);
+            Size axes = new Size(5 + random.nextDouble() * 30, 2 + random.nextDouble() * 10);
+            Imgproc.ellipse(masked, center, axes, random.nextDouble() * 180, 0, 360, ringColor, -1);
+        }
+        List<MatOfPoint> contours = new ArrayList<>();
+        new SegmentationOperator().process(masked, contours, new Point());
+        masked.release();
+
+        VisionScorer[] scorers = {new AreaScorer(), new AspectRatioScorer(), new ExtentScorer(), new SolidityScorer()};
+        double[] nanos = new double[scorers.length];
+        for (int s = 0; s < scorers.length; s++) {
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+                long start = System.nanoTime();
+                for (MatOfPoint contour : contours) {
+                    scorers[s].score(new RingData(contour));
+                }
+                if (i >= WARMUP_ITERATIONS) nanos[s] += (double) (System.nanoTime() - start) / MEASURED_ITERATIONS / contours.size();
+            }
+        }
+        for (MatOfPoint contour : contours) {
+            contour.release();
+        }
+
+        double cheapest = Double.POSITIVE_INFINITY;
+        for (double time : nanos) {
+            cheapest = Math.min(cheapest, time);
+        }
+        System.out.printf("%d contours%n", contours.size());
+        for (int s = 0; s < scorers.length; s++) {
+            System.out.printf("%-20s %.3f us  cost %.1f  declared %.1f%n", scorers[s].getName(), nanos[s] / 1e3,
+                    nanos[s] / cheapest, scorers[s].getCost());
+        }
+    }
+
+    /*
+     * Masked frames (the watershed only sees ring pixels) the size of the replayed ones, with a
+     * single ring, a stack of 4 touching rings and many scattered rings
+     */
+    @Test
+    public void Segmentation() {
+        Size size = frames.get(0).size();
+        Scalar ringColor = new Scalar(255, 140, 0, 255);
+        Random random = new Random(0);
+
+        Mat one = Mat.zeros(size, CvType.CV_8UC4);
+        Imgproc.ellipse(one, new Point(size.width / 2, size.height / 2), new Size(30, 8), 0, 0, 360, ringColor, -1);
+
+        Mat stack = Mat.zeros(size, CvType.CV_8UC4);
+        for (int i = 0; i < 4; i++) {
+            Imgproc.ellipse(stack, new Point(size.width / 2, size.height / 2 - 30 + i * 15), new Size(30, 8), 0, 0, 360, ringColor, -1);
+        }
+
+        Mat many = Mat.zeros(size, CvType.CV_8UC4);
+        for (int i = 0; i < 50; i++) {
+            Point center = new Point(random.nextDouble() * size.width, random.nextDouble() * size.height);
+            Imgproc.ellipse(many, center, new Size(10, 4), 0, 0, 360, ringColor, -1);
+        }
+
+        run(one, "1 blob");
+        run(stack, "4 blobs");
+        run(many, "50 blobs");
+    }
+
+    private void run(Mat masked, String name) {
+        SegmentationOperator operator = new SegmentationOperator();
+        List<MatOfPoint> contours = new ArrayList<>();
+        long[] times = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            operator.process(masked, contours, new Point());
+            if (i >= WARMUP_ITERATIONS) times[i - WARMUP_ITERATIONS] = System.nanoTime() - start;
+
+            if (i == 0) System.out.printf("%s: %d contours%n", name, contours.size());
+            for (MatOfPoint contour : contours) {
+                contour.release();
+            }
+            contours.clear();
+        }
+        print(name, times, 0);
+    }
+
+    /*
+     * Throughput and end to end latency replaying the frames as fast as possible and at the camera
+     * rate, sequential against staged
+     */
+    @Test
+    public void Staged() throws InterruptedException {
+        for (double fps : new double[] {0, 30}) {
+            boolean defaultStaged = RingPipeline.STAGED;
+            try {
+                RingPipeline.STAGED = false;
+                runReplay(new RingPipeline(), fps);
+                RingPipeline.STAGED = true;
+                runReplay(new RingPipeline(), fps);
+            } finally {
+                RingPipeline.STAGED = defaultStaged;
+            }
+        }
+    }
+
+    private void runReplay(RingPipeline pipeline, double fps) throws InterruptedException {
+        int count = Math.max(frames.size(), MEASURED_ITERATIONS / 4);
+        List<Mat> replayed = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            replayed.add(frames.get(i % frames.size()));
+        }
+
+        long start = System.nanoTime();
+        long[] times = new FrameReplay(pipeline, replayed).run(fps, null);
+        while (!pipeline.isStagedIdle()) {
+            Thread.sleep(1);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        pipeline.close();
+
+        String name = (pipeline.isStaged() ? "staged" : "sequential") + (fps > 0 ? " @ " + (int) fps + " fps" : "");
+        if (pipeline.isStaged()) {
+            System.out.printf("%-24s %.1f frames/s  latency %.3f ms  %d dropped  camera thread %.3f ms%n", name,
+                    pipeline.getStagedFramesCompleted() / elapsed, pipeline.getStagedLatency(),
+                    pipeline.getStagedFramesDropped(), mean(times));
+        } else {
+            System.out.printf("%-24s %.1f frames/s  latency %.3f ms%n", name, times.length / elapsed, mean(times));
+        }
+    }
+
+    private static double mean(long[] times) {
+        double mean = 0;
+        for (long time : times) {
+            mean += time / 1e6 / times.length;
+        }
+        return mean;
+    }
+
+    private void run(MatOperator operator, String name) {
+        // Warms up and builds the lookup table before timing
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operator.process(frames.get(i % frames.size()));
+        }
+
+        long[] times = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            Mat frame = frames.get(i % frames.size());
+            long start = System.nanoTime();
+            operator.process(frame);
+            times[i] = System.nanoTime() - start;
+        }
+        print(name, times, 0);
+    }
+
+    private void run(RingPipeline pipeline, String name) {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Like the camera, copy each frame into the same input buffer
+        Mat input = new Mat();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            frames.get(i % frames.size()).copyTo(input);
+            pipeline.processFrame(input);
+        }
+
+        long[] times = new long[MEASURED_ITERATIONS];
+        long allocated = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            frames.get(i % frames.size()).copyTo(input);
+
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            pipeline.processFrame(input);
+            times[i] = System.nanoTime() - start;
+            allocated += threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        }
+        input.release();
+        print(name, times, allocated / MEASURED_ITERATIONS);
+    }
+
+    private static void print(String name, long[] times, long allocatedPerFrame) {
+        Arrays.sort(times);
+        double mean = 0;
+        for (long time : times) {
+            mean += time / 1e6 / times.length;
+        }
+        System.out.printf("%-10s mean %.3f ms  p50 %.3f ms  p99 %.3f ms  %d bytes/frame%n", name, mean,
+                times[times.length / 2] / 1e6, times[(int) (times.length * .99)] / 1e6,
+                allocatedPerFrame);
+    }
+}
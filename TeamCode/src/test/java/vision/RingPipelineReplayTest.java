@@ -0,0 +1,191 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.FrameReplay;
+import org.firstinspires.ftc.teamcode.vision.RingData;
+import org.firstinspires.ftc.teamcode.vision.RingPipeline;
+import org.firstinspires.ftc.teamcode.vision.StackClassifier;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Replays frames captured with Vision.saveOutput() through RingPipeline. Set -Dvision.frames to the
+ * samples folder (or a .frames file) and optionally -Dvision.output to a CSV of the per frame
+ * results, which can be diffed between pipeline changes. Skipped without desktop OpenCV.
+ */
+public class RingPipelineReplayTest {
+    // Fraction of frames the downscaled search must classify the same as full resolution
+    private static final double MIN_STACK_AGREEMENT = 0.95;
+    private static final int[] STACK_SIZES = {0, 1, 4};
+
+    private File source;
+
+    private static class FrameResult {
+        final List<Double> areas = new ArrayList<>();
+        final List<Double> heights = new ArrayList<>();
+        int stackSize; // what this frame alone votes for
+        long processNanos;
+    }
+
+    @Before
+    public void setUp() {
+        source = VisionTestUtil.assumeFramesSource();
+        VisionTestUtil.assumeOpenCv();
+    }
+
+    private List<FrameResult> replay(double fps) throws IOException, InterruptedException {
+        RingPipeline pipeline = new RingPipeline();
+        List<FrameResult> results = new ArrayList<>();
+        new FrameReplay(pipeline, source).run(fps, (index, output, processNanos) -> {
+            FrameResult result = new FrameResult();
+            for (RingData ring : pipeline.getRingData()) {
+                result.areas.add(ring.getContourArea());
+                result.heights.add(ring.getBoxSize().height);
+            }
+            StackClassifier classifier = new StackClassifier();
+            classifier.add(pipeline.getLatestResult());
+            result.stackSize = classifier.getStackSize();
+            result.processNanos = processNanos;
+            results.add(result);
+        });
+        return results;
+    }
+
+    @Test
+    public void ReplayIsDeterministic() throws IOException, InterruptedException {
+        List<FrameResult> first = replay(0);
+        List<FrameResult> second = replay(30); // camera rate
+
+        assertThat(second.size()).isEqualTo(first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertThat(second.get(i).areas).containsExactlyElementsIn(first.get(i).areas).inOrder();
+            assertThat(second.get(i).heights).containsExactlyElementsIn(first.get(i).heights).inOrder();
+        }
+
+        long totalNanos = 0;
+        for (FrameResult result : first) {
+            totalNanos += result.processNanos;
+        }
+        System.out.printf("%d frames, %.1f frames/s%n", first.size(), first.size() / (totalNanos / 1e9));
+
+        String outputPath = System.getProperty("vision.output");
+        if (outputPath != null) {
+            try (PrintWriter writer = new PrintWriter(outputPath)) {
+                writer.println("frame,rings,largest area,largest height,process time (ms)");
+                for (int i = 0; i < first.size(); i++) {
+                    FrameResult result = first.get(i);
+                    writer.println(i + "," + result.areas.size() + ","
+                            + (result.areas.isEmpty() ? "" : result.areas.get(0)) + ","
+                            + (result.heights.isEmpty() ? "" : result.heights.get(0)) + ","
+                            + result.processNanos / 1e6);
+                }
+            }
+        }
+    }
+
+    private static int stackIndex(int stackSize) {
+        for (int i = 0; i < STACK_SIZES.length; i++) {
+            if (STACK_SIZES[i] == stackSize) return i;
+        }
+        throw new IllegalArgumentException("Unexpected stack size " + stackSize);
+    }
+
+    /*
+     * Accuracy of the downscaled search against a full resolution replay of the same frames. Each
+     * frame's stack size vote goes into a confusion matrix (rows full resolution, columns
+     * downscaled), which has to be mostly diagonal and never mix up 0 and 4 rings.
+     */
+    @Test
+    public void DownscaleAccuracyVsLatency() throws IOException, InterruptedException {
+        int defaultDownscale = RingPipeline.DOWNSCALE;
+        try {
+            RingPipeline.DOWNSCALE = 1;
+            List<FrameResult> reference = replay(0);
+
+            for (int downscale : new int[] {1, 2, 4}) {
+                RingPipeline.DOWNSCALE = downscale;
+                List<FrameResult> results = replay(0);
+                assertThat(results.size()).isEqualTo(reference.size());
+
+                int countMatches = 0, heightSamples = 0;
+                double heightError = 0;
+                long totalNanos = 0;
+                int[][] confusion = new int[STACK_SIZES.length][STACK_SIZES.length];
+                for (int i = 0; i < results.size(); i++) {
+                    FrameResult result = results.get(i), expected = reference.get(i);
+                    if (result.areas.size() == expected.areas.size()) countMatches++;
+                    if (!result.heights.isEmpty() && !expected.heights.isEmpty()) {
+                        heightError += Math.abs(result.heights.get(0) - expected.heights.get(0));
+                        heightSamples++;
+                    }
+                    confusion[stackIndex(expected.stackSize)][stackIndex(result.stackSize)]++;
+                    totalNanos += result.processNanos;
+                }
+                int agreed = 0;
+                for (int i = 0; i < STACK_SIZES.length; i++) {
+                    agreed += confusion[i][i];
+                }
+                double agreement = results.isEmpty() ? 1 : (double) agreed / results.size();
+
+                System.out.printf("Downscale %d: mean %.3f ms, ring count matches %.1f%%, largest height error %.2f px, stack agreement %.1f%%%n",
+                        downscale, totalNanos / 1e6 / results.size(), 100.0 * countMatches / results.size(),
+                        heightSamples == 0 ? 0 : heightError / heightSamples, 100 * agreement);
+                for (int i = 0; i < STACK_SIZES.length; i++) {
+                    System.out.printf("  %d rings: %s%n", STACK_SIZES[i], Arrays.toString(confusion[i]));
+                }
+
+                if (downscale == 1) {
+                    assertThat(agreement).isEqualTo(1.0); // same pipeline, must be identical
+                } else {
+                    assertThat(agreement).isAtLeast(MIN_STACK_AGREEMENT);
+                }
+                assertThat(confusion[stackIndex(0)][stackIndex(4)]).isEqualTo(0);
+                assertThat(confusion[stackIndex(4)][stackIndex(0)]).isEqualTo(0);
+            }
+        } finally {
+            RingPipeline.DOWNSCALE = defaultDownscale;
+        }
+    }
+
+    /*
+     * A stack that leaves the tracked region is lost for at most one frame: a frame without
+     * detections clears the region, so the next one searches the whole crop again
+     */
+    @Test
+    public void RoiTrackingReacquiresLostRings() throws IOException, InterruptedException {
+        boolean defaultTracking = RingPipeline.ROI_TRACKING;
+        try {
+            RingPipeline.ROI_TRACKING = false;
+            List<FrameResult> reference = replay(0);
+            RingPipeline.ROI_TRACKING = true;
+            List<FrameResult> tracked = replay(0);
+            assertThat(tracked.size()).isEqualTo(reference.size());
+
+            int lost = 0, countMatches = 0;
+            long referenceNanos = 0, trackedNanos = 0;
+            for (int i = 0; i < tracked.size(); i++) {
+                FrameResult result = tracked.get(i), expected = reference.get(i);
+                if (result.areas.size() == expected.areas.size()) countMatches++;
+                if (result.areas.isEmpty() && !expected.areas.isEmpty()) lost++;
+                if (result.areas.isEmpty() && i + 1 < tracked.size()) {
+                    assertThat(tracked.get(i + 1).areas).containsExactlyElementsIn(reference.get(i + 1).areas).inOrder();
+                }
+                referenceNanos += expected.processNanos;
+                trackedNanos += result.processNanos;
+            }
+            System.out.printf("ROI tracking: mean %.3f ms (full search %.3f ms), ring count matches %.1f%%, %d frames lost%n",
+                    trackedNanos / 1e6 / tracked.size(), referenceNanos / 1e6 / reference.size(),
+                    100.0 * countMatches / tracked.size(), lost);
+        } finally {
+            RingPipeline.ROI_TRACKING = defaultTracking;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.AbstractVisionScorer;
+import org.firstinspires.ftc.robotlib.vision.ScoringChain;
+import org.firstinspires.ftc.teamcode.vision.RingData;
+import org.firstinspires.ftc.teamcode.vision.RingPipeline;
+import org.firstinspires.ftc.teamcode.vision.scorers.AreaScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.AspectRatioScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.ExtentScorer;
+import org.firstinspires.ftc.teamcode.vision.scorers.SolidityScorer;
+import org.junit.Test;
+import org.opencv.core.Rect;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScoringChainTest {
+    private static class FakeScorer extends AbstractVisionScorer {
+        private final double score;
+        private final double minScore;
+        private final double cost;
+        int calls = 0;
+
+        FakeScorer(String name, double score, double minScore, double cost) {
+            super(name);
+            this.score = score;
+            this.minScore = minScore;
+            this.cost = cost;
+        }
+
+        @Override
+        public double score(RingData ringData) {
+            calls++;
+            return score;
+        }
+
+        @Override
+        public double getCost() {
+            return cost;
+        }
+
+        @Override
+        public double getWeight() {
+            return 1;
+        }
+
+        @Override
+        public double getMinScore() {
+            return minScore;
+        }
+    }
+
+    @Test
+    public void StopsOnceThresholdCannotBeReached() {
+        ScoringChain chain = new ScoringChain();
+        FakeScorer bad = new FakeScorer("Bad", 5, 0, 1);
+        FakeScorer rest = new FakeScorer("Rest", 0, 0, 1);
+        chain.add(bad);
+        chain.add(rest);
+
+        assertThat(chain.score(null, 3)).isGreaterThan(3.0);
+        assertThat(rest.calls).isEqualTo(0);
+        chain.endFrame();
+        assertThat(chain.getTelemetryData().get("Scoring: Bad rejections").toString()).isEqualTo("1");
+    }
+
+    @Test
+    public void KeepsGoingWhileALaterScorerCouldLowerTheScore() {
+        ScoringChain chain = new ScoringChain();
+        FakeScorer bad = new FakeScorer("Bad", 5, 0, 1);
+        FakeScorer area = new FakeScorer("Area", -4, -10, 1);
+        chain.add(bad);
+        chain.add(area);
+
+        assertThat(chain.score(null, 3)).isEqualTo(1.0);
+        assertThat(area.calls).isEqualTo(1);
+    }
+
+    @Test
+    public void CheapestScorersRunFirst() {
+        ScoringChain chain = new ScoringChain();
+        FakeScorer expensive = new FakeScorer("Expensive", 1, 0, 5);
+        FakeScorer cheap = new FakeScorer("Cheap", 10, 0, 1);
+        chain.add(expensive);
+        chain.add(cheap);
+
+        // Cheap scorer runs first and rejects on its own
+        assertThat(chain.score(null, 3)).isGreaterThan(3.0);
+        assertThat(expensive.calls).isEqualTo(0);
+        // Added order is kept for telemetry and logging
+        assertThat(chain.getScorers()).containsExactly(expensive, cheap).inOrder();
+    }
+
+    @Test
+    public void EqualCostsKeepTheOrderAdded() {
+        ScoringChain chain = new ScoringChain();
+        FakeScorer first = new FakeScorer("First", 10, 0, 2);
+        FakeScorer second = new FakeScorer("Second", 10, 0, 2);
+        chain.add(first);
+        chain.add(second);
+
+        chain.score(null, 3);
+        assertThat(first.calls).isEqualTo(1);
+        assertThat(second.calls).isEqualTo(0);
+    }
+
+    private static ScoringChain ringScoringChain() {
+        // Same order RingPipeline adds them in
+        ScoringChain chain = new ScoringChain();
+        chain.add(new AreaScorer());
+        chain.add(new AspectRatioScorer());
+        chain.add(new ExtentScorer());
+        chain.add(new SolidityScorer());
+        return chain;
+    }
+
+    private static RingData ring(double normalizedArea, Rect boundingRect, double area, double hullArea) {
+        RingData ring = mock(RingData.class);
+        when(ring.getNormalizedContourArea()).thenReturn(normalizedArea);
+        when(ring.getBoundingRect()).thenReturn(boundingRect);
+        when(ring.getContourArea()).thenReturn(area);
+        when(ring.getBoxArea()).thenReturn(boundingRect.area());
+        when(ring.getConvexHullArea()).thenReturn(hullArea);
+        return ring;
+    }
+
+    /*
+     * RingData computes features on first use, so a contour the cheap scorers reject never pays
+     * for its convex hull or moments
+     */
+    @Test
+    public void NoiseRejectedBeforeTheConvexHull() {
+        ScoringChain chain = ringScoringChain();
+        RingData noise = ring(0.001, new Rect(0, 0, 200, 1), 150, 200);
+
+        assertThat(chain.score(noise, RingPipeline.SCORE_THRESHOLD)).isGreaterThan(RingPipeline.SCORE_THRESHOLD);
+        verify(noise, never()).getContourArea();
+        verify(noise, never()).getConvexHullArea();
+        verify(noise, never()).getCentroid();
+    }
+
+    @Test
+    public void RingsRunEveryScorer() {
+        ScoringChain chain = ringScoringChain();
+        RingData ring = ring(0.05, new Rect(0, 0, 67, 10), 575, 593);
+
+        assertThat(chain.score(ring, RingPipeline.SCORE_THRESHOLD)).isAtMost(RingPipeline.SCORE_THRESHOLD);
+        verify(ring, times(1)).getConvexHullArea();
+    }
+}
@@ -0,0 +1,74 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.VisionSnapshot;
+import org.firstinspires.ftc.teamcode.vision.RingData;
+import org.firstinspires.ftc.teamcode.vision.StackClassifier;
+import org.junit.Test;
+import org.opencv.core.Size;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StackClassifierTest {
+    private long sequence = 0;
+
+    private VisionSnapshot<RingData> frame(double height) {
+        RingData ring = mock(RingData.class);
+        when(ring.getNormalizedContourArea()).thenReturn(0.01);
+        when(ring.getBoxSize()).thenReturn(new Size(40, height));
+        List<RingData> rings = Collections.singletonList(ring);
+        return new VisionSnapshot<>(rings, System.nanoTime(), ++sequence);
+    }
+
+    private VisionSnapshot<RingData> emptyFrame() {
+        return new VisionSnapshot<>(Collections.<RingData>emptyList(), System.nanoTime(), ++sequence);
+    }
+
+    @Test
+    public void OneNoisyFrameDoesNotChangeTheAnswer() {
+        StackClassifier classifier = new StackClassifier();
+        for (int i = 0; i < StackClassifier.MIN_FRAMES; i++) {
+            classifier.add(frame(25));
+        }
+        assertThat(classifier.isReady()).isTrue();
+        assertThat(classifier.getStackSize()).isEqualTo(4);
+
+        classifier.add(emptyFrame());
+        assertThat(classifier.getStackSize()).isEqualTo(4);
+    }
+
+    @Test
+    public void NotReadyUntilEnoughFramesAgree() {
+        StackClassifier classifier = new StackClassifier();
+        for (int i = 0; i < StackClassifier.MIN_FRAMES - 1; i++) {
+            classifier.add(frame(8));
+        }
+        assertThat(classifier.isReady()).isFalse();
+
+        classifier.add(frame(8));
+        assertThat(classifier.isReady()).isTrue();
+        assertThat(classifier.getStackSize()).isEqualTo(1);
+
+        // Alternating answers never reach MIN_CONFIDENCE
+        classifier.reset();
+        for (int i = 0; i < StackClassifier.WINDOW; i++) {
+            classifier.add(i % 2 == 0 ? frame(8) : emptyFrame());
+        }
+        assertThat(classifier.isReady()).isFalse();
+    }
+
+    @Test
+    public void RepeatedSnapshotsOnlyVoteOnce() {
+        StackClassifier classifier = new StackClassifier();
+        VisionSnapshot<RingData> snapshot = frame(25);
+        for (int i = 0; i < StackClassifier.MIN_FRAMES; i++) {
+            classifier.add(snapshot);
+        }
+        assertThat(classifier.getFrameCount()).isEqualTo(1);
+        assertThat(classifier.isReady()).isFalse();
+    }
+}
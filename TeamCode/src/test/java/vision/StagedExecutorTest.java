@@ -0,0 +1,130 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.StagedExecutor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class StagedExecutorTest {
+    private static final long TIMEOUT_MS = 5000;
+    private static final int QUEUE_CAPACITY = 1;
+    private static final int STAGES = 2;
+    private static final int JOBS = STAGES * (QUEUE_CAPACITY + 1) + 1;
+
+    private static class Job {
+        int id;
+    }
+
+    private StagedExecutor<Job> executor;
+
+    private static List<Job> jobs() {
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < JOBS; i++) {
+            jobs.add(new Job());
+        }
+        return jobs;
+    }
+
+    private void submit(int id) {
+        Job job = executor.acquire();
+        if (job == null) return; // counted as dropped
+        job.id = id;
+        executor.submit(job);
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!executor.isIdle() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(executor.isIdle()).isTrue();
+    }
+
+    @After
+    public void tearDown() {
+        if (executor != null) executor.stop();
+    }
+
+    @Test
+    public void StopJoinsStageThreads() throws InterruptedException {
+        Set<Thread> stageThreads = ConcurrentHashMap.newKeySet();
+        CountDownLatch inSlowStage = new CountDownLatch(1);
+        AtomicBoolean slowStageFinished = new AtomicBoolean(false);
+
+        StagedExecutor.Stage<Job> fast = job -> stageThreads.add(Thread.currentThread());
+        StagedExecutor.Stage<Job> slow = job -> {
+            stageThreads.add(Thread.currentThread());
+            inSlowStage.countDown();
+            try {
+                Thread.sleep(TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowStageFinished.set(true);
+        };
+        executor = new StagedExecutor<>(jobs(), QUEUE_CAPACITY, job -> {}, Arrays.asList(fast, slow));
+        executor.start();
+
+        submit(0);
+        assertThat(inSlowStage.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(stageThreads).hasSize(STAGES);
+
+        executor.stop();
+        // The job in flight is finished and every thread is gone by the time stop() returns
+        assertThat(slowStageFinished.get()).isTrue();
+        for (Thread thread : stageThreads) {
+            assertThat(thread.isAlive()).isFalse();
+        }
+    }
+
+    @Test
+    public void OrderingUnderSlowConsumer() throws InterruptedException {
+        final int submitted = 20;
+        List<Integer> completed = new CopyOnWriteArrayList<>();
+        CountDownLatch consumerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        StagedExecutor.Stage<Job> producer = job -> {};
+        StagedExecutor.Stage<Job> consumer = job -> {
+            if (job.id != 0) return;
+            consumerBlocked.countDown();
+            try {
+                release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor = new StagedExecutor<>(jobs(), QUEUE_CAPACITY, job -> completed.add(job.id),
+                Arrays.asList(producer, consumer));
+        executor.start();
+
+        submit(0);
+        assertThat(consumerBlocked.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        // Everything behind the stalled stage piles up and the oldest is dropped
+        for (int id = 1; id <= submitted; id++) {
+            submit(id);
+        }
+        release.countDown();
+        awaitIdle();
+
+        assertThat(completed.get(0)).isEqualTo(0);
+        // The newest frame always makes it through
+        assertThat(completed.get(completed.size() - 1)).isEqualTo(submitted);
+        for (int i = 1; i < completed.size(); i++) {
+            assertThat(completed.get(i)).isGreaterThan(completed.get(i - 1));
+        }
+        assertThat(executor.getDropped()).isEqualTo(submitted + 1 - completed.size());
+        assertThat(executor.getQueued()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,63 @@
+package vision;
+
+import org.firstinspires.ftc.robotlib.vision.FrameReplay;
+import org.junit.Assume;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Setup for the tests that need desktop OpenCV on java.library.path or captured frames passed in
+ * with -Dvision.frames. When either is missing the calling test is skipped rather than failed.
+ */
+final class VisionTestUtil {
+    private static final String FRAMES_PROPERTY = "vision.frames";
+
+    private VisionTestUtil() {
+
+    }
+
+    static void assumeOpenCv() {
+        try {
+            System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+        } catch (UnsatisfiedLinkError e) {
+            Assume.assumeNoException(e);
+        }
+    }
+
+    /**
+     * The folder or frame sequence file given with -Dvision.frames
+     */
+    static File assumeFramesSource() {
+        String framesPath = System.getProperty(FRAMES_PROPERTY);
+        Assume.assumeNotNull(framesPath);
+        return new File(framesPath);
+    }
+
+    /**
+     * Every frame from -Dvision.frames, needs OpenCV to be loaded first
+     */
+    static List<Mat> assumeFrames() {
+        List<Mat> frames = null;
+        try {
+            frames = FrameReplay.loadFrames(assumeFramesSource());
+        } catch (IOException e) {
+            Assume.assumeNoException(e);
+        }
+        Assume.assumeFalse(frames.isEmpty());
+        return frames;
+    }
+
+    /**
+     * Frames from -Dvision.frames if it's set, otherwise none
+     */
+    static List<Mat> optionalFrames() throws IOException {
+        String framesPath = System.getProperty(FRAMES_PROPERTY);
+        if (framesPath == null) return new ArrayList<>();
+        return FrameReplay.loadFrames(new File(framesPath));
+    }
+}
@@ -0,0 +1,73 @@
+package vision;
+
+import org.firstinspires.ftc.teamcode.vision.operators.YCrCbLookupFilter;
+import org.firstinspires.ftc.teamcode.vision.operators.YCrCbRangeFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Checks the lookup table mask against cvtColor + blur + inRange on random frames, and on replayed
+ * frames when -Dvision.frames is set. Skipped without desktop OpenCV.
+ */
+public class YCrCbLookupFilterTest {
+    private static final double TOLERANCE = 0.01; // fraction of pixels allowed to differ
+
+    private final List<Mat> frames = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        VisionTestUtil.assumeOpenCv();
+
+        // Random colors around the ring thresholds, RGBA like the camera
+        Mat noise = new Mat(240, 320, CvType.CV_8UC4);
+        Core.randu(noise, new Scalar(120, 40, 0, 255), new Scalar(256, 140, 60, 256));
+        frames.add(noise);
+
+        frames.addAll(VisionTestUtil.optionalFrames());
+    }
+
+    @Test
+    public void MatchesRangeFilter() {
+        YCrCbRangeFilter rangeFilter = new YCrCbRangeFilter();
+        YCrCbLookupFilter lookupFilter = new YCrCbLookupFilter();
+        Mat difference = new Mat();
+
+        double worst = 0;
+        for (Mat frame : frames) {
+            Mat expected = rangeFilter.process(frame);
+            Mat actual = lookupFilter.process(frame);
+            assertThat(actual.size()).isEqualTo(expected.size());
+
+            Core.absdiff(expected, actual, difference);
+            worst = Math.max(worst, (double) Core.countNonZero(difference) / difference.total());
+        }
+        System.out.printf("%d frames, worst %.3f%% of pixels differ%n", frames.size(), worst * 100);
+        assertThat(worst).isAtMost(TOLERANCE);
+    }
+
+    @Test
+    public void RebuildsWhenThresholdsChange() {
+        int defaultUpperCr = YCrCbRangeFilter.upperThresholdCr;
+        YCrCbLookupFilter lookupFilter = new YCrCbLookupFilter();
+        Mat frame = frames.get(0);
+        try {
+            int before = Core.countNonZero(lookupFilter.process(frame));
+            YCrCbRangeFilter.upperThresholdCr = YCrCbRangeFilter.lowerThresholdCr - 1;
+            assertThat(Core.countNonZero(lookupFilter.process(frame))).isEqualTo(0);
+            YCrCbRangeFilter.upperThresholdCr = defaultUpperCr;
+            assertThat(Core.countNonZero(lookupFilter.process(frame))).isEqualTo(before);
+        } finally {
+            YCrCbRangeFilter.upperThresholdCr = defaultUpperCr;
+        }
+    }
+}